@@ -0,0 +1,50 @@
+package com.timecapsule.benchmark;
+
+import com.timecapsule.dto.AdminLoginRequest;
+import com.timecapsule.service.AdminService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AdminService.validateToken 对有效与无效 token 的校验耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdminTokenBenchmark {
+
+    private AdminService adminService;
+    private String validToken;
+    private String invalidToken;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        adminService = new AdminService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(adminService, "adminPassword", "admin123");
+        ReflectionTestUtils.setField(adminService, "jwtSecret",
+                "K8bZ9nQ2sF7xL3pR6vY1wT4uH9cD5eG8jK1mN4fddf7vX0zC2bL6pR9tW3yF8hJ2k");
+        ReflectionTestUtils.setField(adminService, "jwtExpiration", 86400000L);
+        adminService.init();
+
+        AdminLoginRequest request = new AdminLoginRequest();
+        request.setPassword("admin123");
+        validToken = adminService.login(request).getToken();
+        invalidToken = validToken.substring(0, validToken.length() - 4) + "AAAA";
+    }
+
+    @Benchmark
+    public boolean validateValidToken() {
+        return adminService.validateToken(validToken);
+    }
+
+    @Benchmark
+    public boolean validateInvalidToken() {
+        return adminService.validateToken(invalidToken);
+    }
+}
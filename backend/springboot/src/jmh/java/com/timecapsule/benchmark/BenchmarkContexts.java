@@ -0,0 +1,59 @@
+package com.timecapsule.benchmark;
+
+import com.timecapsule.Application;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 基准测试用的 Spring 上下文，每次启动使用独立的内存数据库并关闭 SQL 日志
+ */
+final class BenchmarkContexts {
+
+    private BenchmarkContexts() {
+    }
+
+    /**
+     * 启动上下文，properties 以命令行参数形式传入，优先级高于 application.properties；
+     * 传入 spring.datasource.url 时替换默认的内存数据库
+     */
+    static ConfigurableApplicationContext start(String... properties) {
+        return start(WebApplicationType.NONE, properties);
+    }
+
+    /**
+     * 启动带内嵌 Tomcat 的上下文，监听随机端口，通过 {@link #port} 获取实际端口
+     */
+    static ConfigurableApplicationContext startWeb(String... properties) {
+        List<String> args = new ArrayList<>(List.of(properties));
+        args.add("server.port=0");
+        return start(WebApplicationType.SERVLET, args.toArray(new String[0]));
+    }
+
+    static int port(ConfigurableApplicationContext context) {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType type, String... properties) {
+        List<String> args = new ArrayList<>();
+        if (Arrays.stream(properties).noneMatch(property -> property.startsWith("spring.datasource.url="))) {
+            args.add("--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        }
+        args.add("--spring.jpa.show-sql=false");
+        args.add("--logging.level.root=WARN");
+        args.add("--logging.level.com.timecapsule=WARN");
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(Application.class)
+                .web(type)
+                .bannerMode(Banner.Mode.OFF)
+                .run(args.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,30 @@
+package com.timecapsule.benchmark;
+
+import com.timecapsule.model.Capsule;
+
+import java.time.LocalDateTime;
+
+/**
+ * 基准测试用的样例数据
+ */
+final class BenchmarkData {
+
+    static final String CONTENT = "一年后的今天，希望你已经实现了目标。记得当初为什么出发，"
+            + "也记得那些陪你走过的人。Dear future me, keep going and stay curious. ";
+
+    private BenchmarkData() {
+    }
+
+    static Capsule capsule(long id, LocalDateTime openTime) {
+        Capsule capsule = new Capsule();
+        capsule.setId(id);
+        capsule.setCapsuleCode(String.format("A%07d", id));
+        capsule.setTitle("给未来的自己 #" + id);
+        capsule.setContent(CONTENT.repeat(10));
+        capsule.setCreatorNickname("小明");
+        capsule.setOpenTime(openTime);
+        capsule.setCreateTime(LocalDateTime.now().minusDays(1));
+        capsule.setIsDeleted(false);
+        return capsule;
+    }
+}
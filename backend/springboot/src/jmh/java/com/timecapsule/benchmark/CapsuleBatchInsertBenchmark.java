@@ -0,0 +1,61 @@
+package com.timecapsule.benchmark;
+
+import com.timecapsule.dto.CapsuleCreateRequest;
+import com.timecapsule.service.CapsuleService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量创建与逐条创建 N 个胶囊的吞吐量对比，单位为每秒完成的 N 条写入轮次
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CapsuleBatchInsertBenchmark {
+
+    @Param({"100"})
+    public int size;
+
+    private ConfigurableApplicationContext context;
+    private CapsuleService capsuleService;
+    private List<CapsuleCreateRequest> requests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start();
+        capsuleService = context.getBean(CapsuleService.class);
+
+        CapsuleCreateRequest request = new CapsuleCreateRequest();
+        request.setTitle("给未来的自己");
+        request.setContent(BenchmarkData.CONTENT);
+        request.setCreatorNickname("小明");
+        request.setOpenTime(LocalDateTime.now().plusYears(1));
+        requests = Collections.nCopies(size, request);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void singleCreates(Blackhole blackhole) {
+        for (CapsuleCreateRequest request : requests) {
+            blackhole.consume(capsuleService.createCapsule(request));
+        }
+    }
+
+    @Benchmark
+    public Object batchCreate() {
+        return capsuleService.createCapsules(requests);
+    }
+}
@@ -0,0 +1,64 @@
+package com.timecapsule.benchmark;
+
+import com.timecapsule.util.CapsuleCodeGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 胶囊码生成吞吐量，分别在 1、4、16 个线程下测量
+ *
+ * legacy 为原实现（共享 java.util.Random + StringBuilder），作为对照
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CapsuleCodeGeneratorBenchmark {
+
+    private static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    @Param({"legacy", "random", "secure"})
+    public String mode;
+
+    private CapsuleCodeGenerator generator;
+    private Random legacyRandom;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generator = new CapsuleCodeGenerator("random", "", 1000, "secure".equals(mode), null, null);
+        legacyRandom = new Random();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String generate1Thread() {
+        return generate();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generate4Threads() {
+        return generate();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String generate16Threads() {
+        return generate();
+    }
+
+    private String generate() {
+        if ("legacy".equals(mode)) {
+            StringBuilder code = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                code.append(CHARACTERS.charAt(legacyRandom.nextInt(CHARACTERS.length())));
+            }
+            return code.toString();
+        }
+        return generator.generateCode();
+    }
+}
@@ -0,0 +1,36 @@
+package com.timecapsule.benchmark;
+
+import com.timecapsule.service.CapsuleService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CapsuleService.isValidCapsuleCode 对合法与非法胶囊码的格式校验
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CapsuleCodeValidationBenchmark {
+
+    private CapsuleService capsuleService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 格式校验不依赖任何协作对象
+        capsuleService = new CapsuleService(null, null, null, null, null, null, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public boolean validCode() {
+        return capsuleService.isValidCapsuleCode("A3X9K2M7");
+    }
+
+    @Benchmark
+    public boolean invalidCode() {
+        return capsuleService.isValidCapsuleCode("a3x9-k2m");
+    }
+}
@@ -0,0 +1,59 @@
+package com.timecapsule.benchmark;
+
+import com.timecapsule.dto.CapsuleCreateRequest;
+import com.timecapsule.service.CapsuleService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 胶囊创建吞吐量：随机胶囊码（含唯一性检查）与 Feistel 序号置换对比
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CapsuleInsertBenchmark {
+
+    /**
+     * random-nofilter 对应原有实现：每次创建都执行 existsByCapsuleCode 查询
+     */
+    @Param({"random-nofilter", "random", "feistel"})
+    public String strategy;
+
+    private ConfigurableApplicationContext context;
+    private CapsuleService capsuleService;
+    private CapsuleCreateRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean feistel = "feistel".equals(strategy);
+        boolean bloomFilter = !"random-nofilter".equals(strategy);
+        context = BenchmarkContexts.start(
+                "capsule.code.strategy=" + (feistel ? "feistel" : "random"),
+                "capsule.code.feistel-key=benchmark-" + System.nanoTime(),
+                "capsule.bloom-filter.enabled=" + bloomFilter);
+        capsuleService = context.getBean(CapsuleService.class);
+
+        request = new CapsuleCreateRequest();
+        request.setTitle("给未来的自己");
+        request.setContent("一年后的今天，希望你已经实现了目标。");
+        request.setCreatorNickname("小明");
+        request.setOpenTime(LocalDateTime.now().plusYears(1));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object createCapsule() {
+        return capsuleService.createCapsule(request);
+    }
+}
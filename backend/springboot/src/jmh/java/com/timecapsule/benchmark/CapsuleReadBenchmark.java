@@ -0,0 +1,126 @@
+package com.timecapsule.benchmark;
+
+import com.timecapsule.model.Capsule;
+import com.timecapsule.repository.CapsuleRepository;
+import com.timecapsule.repository.CapsuleView;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读取完整实体与展示投影的对比：单个胶囊查询（未开启/已开启）和 100 条的列表页
+ *
+ * 辅助计数器 bytes 统计从结果集读出的字段字节数（字符串按 UTF-8 计，其余字段按 8 字节计），
+ * 除以 calls 即每次请求读取的字节数。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CapsuleReadBenchmark {
+
+    private static final int CAPSULES = 200;
+
+    /**
+     * entity 对应原有实现：读取包含 content 列的完整实体
+     */
+    @Param({"entity", "projection"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private CapsuleRepository repository;
+    private String lockedCode;
+    private String openCode;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Bytes {
+        public long bytes;
+        public long calls;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+            calls = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start("capsule.open-scheduler.enabled=false");
+        repository = context.getBean(CapsuleRepository.class);
+
+        // 内容接近 10000 字符的上限；一半胶囊已开启，一半未开启
+        String content = BenchmarkData.CONTENT.repeat(10000 / BenchmarkData.CONTENT.length());
+        List<Capsule> capsules = new ArrayList<>();
+        for (int i = 0; i < CAPSULES; i++) {
+            LocalDateTime openTime = i % 2 == 0 ? LocalDateTime.now().plusYears(1) : LocalDateTime.now().minusDays(1);
+            Capsule capsule = BenchmarkData.capsule(i, openTime);
+            capsule.setId(null);
+            capsule.setContent(content);
+            capsules.add(capsule);
+        }
+        repository.saveAll(capsules);
+        lockedCode = capsules.get(0).getCapsuleCode();
+        openCode = capsules.get(1).getCapsuleCode();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object lookupLocked(Bytes counter) {
+        return lookup(lockedCode, counter);
+    }
+
+    @Benchmark
+    public Object lookupOpen(Bytes counter) {
+        return lookup(openCode, counter);
+    }
+
+    @Benchmark
+    public Object listPage(Bytes counter) {
+        PageRequest page = PageRequest.of(0, 100, Sort.by(Sort.Direction.DESC, "createTime"));
+        List<Capsule> capsules = "entity".equals(mode)
+                ? repository.findAll(page).getContent()
+                : repository.findAllNotDeleted(LocalDateTime.now(), page).map(CapsuleView::toCapsule).getContent();
+        for (Capsule capsule : capsules) {
+            counter.bytes += bytesRead(capsule);
+        }
+        counter.calls++;
+        return capsules;
+    }
+
+    private Capsule lookup(String code, Bytes counter) {
+        Capsule capsule = "entity".equals(mode)
+                ? repository.findByCapsuleCodeAndNotDeleted(code).orElseThrow()
+                : repository.findViewByCapsuleCode(code, LocalDateTime.now()).orElseThrow().toCapsule();
+        counter.bytes += bytesRead(capsule);
+        counter.calls++;
+        return capsule;
+    }
+
+    private static long bytesRead(Capsule capsule) {
+        long bytes = 8L * 4;
+        bytes += utf8Length(capsule.getCapsuleCode());
+        bytes += utf8Length(capsule.getTitle());
+        bytes += utf8Length(capsule.getCreatorNickname());
+        bytes += utf8Length(capsule.getContent());
+        return bytes;
+    }
+
+    private static long utf8Length(String value) {
+        return value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
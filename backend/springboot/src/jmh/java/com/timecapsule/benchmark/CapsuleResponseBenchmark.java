@@ -0,0 +1,39 @@
+package com.timecapsule.benchmark;
+
+import com.timecapsule.dto.CapsuleResponse;
+import com.timecapsule.model.Capsule;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CapsuleResponse.fromEntity 的未开启（含剩余时间计算）与已开启两条路径
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CapsuleResponseBenchmark {
+
+    private Capsule lockedCapsule;
+    private Capsule openedCapsule;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        lockedCapsule = BenchmarkData.capsule(1, LocalDateTime.now().plusYears(1));
+        openedCapsule = BenchmarkData.capsule(2, LocalDateTime.now().minusDays(1));
+    }
+
+    @Benchmark
+    public CapsuleResponse fromEntityLocked() {
+        return CapsuleResponse.fromEntity(lockedCapsule, true);
+    }
+
+    @Benchmark
+    public CapsuleResponse fromEntityOpened() {
+        return CapsuleResponse.fromEntity(openedCapsule, true);
+    }
+}
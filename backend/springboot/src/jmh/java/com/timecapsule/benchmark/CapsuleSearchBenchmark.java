@@ -0,0 +1,82 @@
+package com.timecapsule.benchmark;
+
+import com.timecapsule.util.NgramIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 管理员按标题或昵称搜索胶囊的单次耗时：n-gram 倒排索引与逐条 contains 扫描（相当于内存中的 LIKE '%x%'，
+ * 不含数据库读取开销，是全表扫描耗时的下限）对比，每次取第一页 20 个胶囊码。
+ *
+ * 标题和昵称由固定种子随机组合中文词语和常见姓名用字生成。query 覆盖高频单字、高频双字词、
+ * 昵称中的双字和较少出现的四字组合。开始时打印索引的词项数和内存占用。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class CapsuleSearchBenchmark {
+
+    private static final String[] TITLE_WORDS = {
+        "给", "未来的", "自己", "一封信", "毕业", "旅行", "生日", "快乐", "十年后", "的我", "写给", "妈妈",
+        "爸爸", "老朋友", "新年", "愿望", "回忆", "夏天", "春天", "第一次", "工作", "搬家", "约定", "小猫"
+    };
+    private static final String SURNAMES = "王李张刘陈杨黄赵吴周徐孙马朱胡郭何高林罗郑梁谢宋唐";
+    private static final String GIVEN = "小明华伟芳娜敏静丽强磊军洋勇艳杰娟涛超秀霞平刚桂英文晨雨";
+
+    @Param({"1000000"})
+    public int documents;
+
+    @Param({"王", "未来", "小明", "毕业旅行"})
+    public String query;
+
+    private NgramIndex index;
+    private String[] titles;
+    private String[] nicknames;
+    private String[] codes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        index = new NgramIndex(2);
+        titles = new String[documents];
+        nicknames = new String[documents];
+        codes = new String[documents];
+        for (int i = 0; i < documents; i++) {
+            StringBuilder title = new StringBuilder();
+            for (int w = 2 + random.nextInt(3); w > 0; w--) {
+                title.append(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+            }
+            StringBuilder nickname = new StringBuilder().append(SURNAMES.charAt(random.nextInt(SURNAMES.length())));
+            for (int g = 1 + random.nextInt(2); g > 0; g--) {
+                nickname.append(GIVEN.charAt(random.nextInt(GIVEN.length())));
+            }
+            titles[i] = title.toString();
+            nicknames[i] = nickname.toString();
+            codes[i] = String.format("%08X", i);
+            index.add(codes[i], titles[i], nicknames[i]);
+        }
+        System.out.printf("%n[index] documents=%d, terms=%d, memory=%dKB%n",
+                index.documents(), index.terms(), index.memoryBytes() / 1024);
+    }
+
+    @Benchmark
+    public NgramIndex.Result index() {
+        return index.search(query, -1, 0, 20);
+    }
+
+    @Benchmark
+    public int scan() {
+        int matched = 0;
+        for (int i = documents - 1; i >= 0; i--) {
+            if (titles[i].contains(query) || nicknames[i].contains(query)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
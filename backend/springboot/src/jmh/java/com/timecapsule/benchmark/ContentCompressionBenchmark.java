@@ -0,0 +1,117 @@
+package com.timecapsule.benchmark;
+
+import com.timecapsule.util.ContentCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 胶囊内容压缩的压缩率和每次写入（encode）、读取（decode）的 CPU 开销
+ *
+ * 文本由固定种子随机组合中文、英文句子片段生成，接近真实书信的用词重复程度，而不是整段重复。
+ * level 为 0 时不压缩，作为对照。辅助计数器 storedBytes / rawBytes 即压缩率。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContentCompressionBenchmark {
+
+    /**
+     * 每个句子由时间、主语、内容三段随机组合，词汇会重复，但句子很少完全相同
+     */
+    private static final String[][] CHINESE = {
+        {"一年后的今天，", "写这封信的时候，", "昨天晚上，", "下雨的午后，", "刚下班回到家，", "周末的早晨，",
+         "搬进新家的第一天，", "生日那天，", "毕业五周年的时候，", "在回老家的火车上，", "失眠的夜里，", "春节前夕，"},
+        {"我", "你", "我们", "爸妈", "老朋友们", "小猫", "同事们", "那时的你", "二十五岁的我", "楼下的邻居"},
+        {"希望已经实现了当初的目标。", "还记得为什么出发吗？", "去江边散了很久的步。", "终于读完了那本关于时间的书。",
+         "在厨房里学着做红烧肉，失败了三次。", "说好要一起去看海，不知道实现了没有。", "总是嘴上说不用，心里却一直惦记着。",
+         "换了新的工作，每天都很忙，但很充实。", "第一次一个人去了陌生的城市旅行。", "趴在键盘上睡着了，打出了一整行乱码。",
+         "决定每周至少跑步三次，希望能坚持下去。", "对未来有一点害怕，也有很多期待。", "要记得对自己温柔一点。",
+         "把房间重新收拾了一遍，扔掉了很多旧东西。"}
+    };
+
+    private static final String[][] ENGLISH = {
+        {"A year from now, ", "As I write this, ", "Last night, ", "On this rainy afternoon, ", "After work today, ",
+         "On Sunday morning, ", "On the day we moved, ", "On my birthday, ", "Five years after graduation, ",
+         "On the train home, ", "When I could not sleep, ", "Right before the holidays, "},
+        {"I ", "you ", "we ", "mom and dad ", "our old friends ", "the cat ", "my colleagues ", "the future you ",
+         "the twenty-five-year-old me ", "the neighbors downstairs "},
+        {"hope the goals we set have come true. ", "still remember why we started. ", "walked along the river for hours. ",
+         "finally finished that book about time. ", "tried to cook dinner and burned it three times. ",
+         "promised to see the ocean together someday. ", "never ask, but they always wait for a call. ",
+         "started a new job that is busy but rewarding. ", "traveled alone to a city far away for the first time. ",
+         "fell asleep on the keyboard and typed a line of nonsense. ", "decided to run three times a week. ",
+         "feel a little afraid of the future, and a lot of hope too. ", "should be kinder to ourselves. ",
+         "cleaned the whole room and threw away many old things. "}
+    };
+
+    @Param({"zh", "en"})
+    public String language;
+
+    @Param({"1000", "10000"})
+    public int length;
+
+    /**
+     * Deflate 压缩级别，0 表示不压缩
+     */
+    @Param({"0", "1", "6"})
+    public int level;
+
+    private ContentCodec codec;
+    private String text;
+    private int rawLength;
+    private byte[] encoded;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Sizes {
+        public long rawBytes;
+        public long storedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rawBytes = 0;
+            storedBytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        codec = level == 0 ? new ContentCodec(Integer.MAX_VALUE, 1) : new ContentCodec(256, level);
+        text = buildText("zh".equals(language) ? CHINESE : ENGLISH, length);
+        rawLength = text.getBytes(StandardCharsets.UTF_8).length;
+        encoded = codec.encode(text);
+    }
+
+    @Benchmark
+    public byte[] encode(Sizes sizes) {
+        byte[] data = codec.encode(text);
+        sizes.rawBytes += rawLength;
+        sizes.storedBytes += data.length;
+        return data;
+    }
+
+    @Benchmark
+    public String decode() {
+        return codec.decode(encoded);
+    }
+
+    private static String buildText(String[][] fragments, int length) {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            for (String[] choices : fragments) {
+                text.append(choices[random.nextInt(choices.length)]);
+            }
+            if (random.nextInt(5) == 0) {
+                text.append('\n');
+            }
+        }
+        return text.substring(0, length);
+    }
+}
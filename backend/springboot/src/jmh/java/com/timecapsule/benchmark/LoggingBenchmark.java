@@ -0,0 +1,128 @@
+package com.timecapsule.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import com.timecapsule.config.LogSamplingFilter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 查询请求路径上日志输出的吞吐量对比，每次调用相当于一次查询请求：
+ * 控制器和服务各一条 INFO 日志，加一条访问日志，写入临时文件（每条立即写出，与控制台输出相同）。
+ *
+ * off：com.timecapsule 和访问日志都只输出 WARN 及以上；sync：同步写出；
+ * async：与 logback-spring.xml 相同配置的 AsyncAppender；sampled：async 加上按调用点采样。
+ * 异步模式下写出速度跟不上时 INFO 日志会被丢弃，结束时打印实际写出的行数。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+
+    private static final String PATTERN = "%d{yyyy-MM-dd HH:mm:ss} [%thread] %-5level %logger{36} - %msg%n";
+    private static final String CODE = "A3X9K2M7";
+    private static final String PATH = "/api/capsules/" + CODE;
+
+    @Param({"off", "sync", "async", "sampled"})
+    public String mode;
+
+    private final LongAdder requests = new LongAdder();
+    private LoggerContext context;
+    private File file;
+    private Logger controllerLog;
+    private Logger serviceLog;
+    private Logger accessLog;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        file = File.createTempFile("logging-benchmark", ".log");
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.setCharset(StandardCharsets.UTF_8);
+        encoder.start();
+
+        FileAppender<ILoggingEvent> fileAppender = new FileAppender<>();
+        fileAppender.setContext(context);
+        fileAppender.setFile(file.getAbsolutePath());
+        fileAppender.setAppend(false);
+        fileAppender.setEncoder(encoder);
+        fileAppender.start();
+
+        Appender<ILoggingEvent> appender = fileAppender;
+        if (!"sync".equals(mode) && !"off".equals(mode)) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setDiscardingThreshold(1638);
+            async.setNeverBlock(true);
+            async.addAppender(fileAppender);
+            async.start();
+            appender = async;
+        }
+        if ("sampled".equals(mode)) {
+            LogSamplingFilter sampling = new LogSamplingFilter();
+            sampling.setContext(context);
+            sampling.start();
+            context.addTurboFilter(sampling);
+        }
+
+        Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.addAppender(appender);
+        root.setLevel("off".equals(mode) ? ch.qos.logback.classic.Level.WARN : ch.qos.logback.classic.Level.INFO);
+
+        controllerLog = context.getLogger("com.timecapsule.controller.CapsuleController");
+        serviceLog = context.getLogger("com.timecapsule.service.CapsuleService");
+        accessLog = context.getLogger("access");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.stop();
+        long lines;
+        try (var stream = Files.lines(file.toPath(), StandardCharsets.UTF_8)) {
+            lines = stream.count();
+        }
+        System.out.printf("%n[%s] requests=%d, lines written=%d of %d%n",
+                mode, requests.sum(), lines, "off".equals(mode) ? 0 : requests.sum() * 3);
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void lookup1Thread() {
+        lookup();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void lookup4Threads() {
+        lookup();
+    }
+
+    private void lookup() {
+        controllerLog.info("收到查询胶囊请求: code={}", CODE);
+        serviceLog.info("查询胶囊: code={}", CODE);
+        accessLog.info("method={} path={} status={} durationMs={} client={}", "GET", PATH, 200, 3.214, "127.0.0.1");
+        requests.increment();
+    }
+}
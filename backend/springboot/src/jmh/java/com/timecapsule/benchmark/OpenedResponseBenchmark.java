@@ -0,0 +1,74 @@
+package com.timecapsule.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.timecapsule.dto.ApiResponse;
+import com.timecapsule.dto.CapsuleResponse;
+import com.timecapsule.model.Capsule;
+import com.timecapsule.service.CapsuleResponseCache;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已开启胶囊查询响应的生成与写出：每次构建 DTO 并用 Jackson 序列化，与直接写出缓存字节对比
+ *
+ * 加 -prof gc 可以看到每次请求的内存分配量。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OpenedResponseBenchmark {
+
+    private static final String CODE = "A0000001";
+
+    /**
+     * 胶囊内容字符数
+     */
+    @Param({"200", "10000"})
+    public int contentLength;
+
+    private ObjectMapper objectMapper;
+    private CapsuleResponseCache responseCache;
+    private Capsule capsule;
+    private final OutputStream out = OutputStream.nullOutputStream();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 与 application.properties 中的 spring.jackson.* 配置保持一致
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .timeZone(TimeZone.getTimeZone("GMT+8"))
+                .simpleDateFormat("yyyy-MM-dd HH:mm:ss")
+                .build();
+        responseCache = new CapsuleResponseCache(objectMapper, true, DataSize.ofMegabytes(64),
+                Duration.ofHours(1), DataSize.ofKilobytes(1));
+
+        capsule = BenchmarkData.capsule(1, LocalDateTime.now().minusDays(1));
+        String content = BenchmarkData.CONTENT.repeat(contentLength / BenchmarkData.CONTENT.length() + 1);
+        capsule.setContent(content.substring(0, contentLength));
+        responseCache.put(CODE, responseCache.stamp(),
+                ApiResponse.success("胶囊已开启", CapsuleResponse.fromEntity(capsule, true)), "\"etag\"");
+    }
+
+    @Benchmark
+    public void serialize() throws IOException {
+        CapsuleResponse response = CapsuleResponse.fromEntity(capsule, true);
+        // 与 Spring MVC 的消息转换器一样写入不关闭底层流的包装
+        objectMapper.writeValue(StreamUtils.nonClosing(out), ApiResponse.success("胶囊已开启", response));
+    }
+
+    @Benchmark
+    public void cachedBytes() throws IOException {
+        out.write(responseCache.get(CODE).getBody());
+    }
+}
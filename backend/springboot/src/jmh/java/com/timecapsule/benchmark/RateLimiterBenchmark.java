@@ -0,0 +1,60 @@
+package com.timecapsule.benchmark;
+
+import com.timecapsule.util.RateLimiter;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流检查的单次耗时，分别在 1、4 个线程下测量
+ *
+ * spread：请求分散在 1 万个客户端 IP 上，基本都被允许（每次一次 CAS）；
+ * hot：所有请求来自同一个 IP，绝大多数被拒绝（只读）。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    private static final int CLIENTS = 10_000;
+
+    @Param({"spread", "hot"})
+    public String pattern;
+
+    private RateLimiter limiter;
+    private String[] clients;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        limiter = new RateLimiter(120, Duration.ofMinutes(1), 65536);
+        clients = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            clients[i] = "10." + (i >> 16 & 0xFF) + "." + (i >> 8 & 0xFF) + "." + (i & 0xFF);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long acquire1Thread() {
+        return acquire();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long acquire4Threads() {
+        return acquire();
+    }
+
+    private long acquire() {
+        // 与真实请求一样，每次使用新的地址字符串，哈希值需要重新计算
+        String client = "hot".equals(pattern)
+                ? new String(clients[0])
+                : new String(clients[ThreadLocalRandom.current().nextInt(CLIENTS)]);
+        return limiter.tryAcquire(client);
+    }
+}
@@ -0,0 +1,99 @@
+package com.timecapsule.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 平台线程与虚拟线程模式下创建、查询接口的负载对比
+ *
+ * 每次调用同时发出 concurrency 个 HTTP 请求并等待全部完成，吞吐量单位为每秒完成的请求轮次。
+ * 关闭胶囊缓存，使查询请求同样阻塞在 JDBC 上；连接池保持默认的 10 个连接。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestLoadBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"400"})
+    public int concurrency;
+
+    private ConfigurableApplicationContext context;
+    private ExecutorService clientExecutor;
+    private HttpClient client;
+    private HttpRequest createRequest;
+    private HttpRequest lookupRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContexts.startWeb(
+                "spring.threads.virtual.enabled=" + "virtual".equals(threads),
+                "capsule.cache.enabled=false",
+                "capsule.rate-limit.enabled=false");
+        String baseUrl = "http://localhost:" + BenchmarkContexts.port(context) + "/api/capsules";
+
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        String body = "{\"title\":\"给未来的自己\",\"content\":\"" + BenchmarkData.CONTENT + "\","
+                + "\"creatorNickname\":\"小明\",\"openTime\":\"" + LocalDateTime.now().plusYears(1).withNano(0) + "\"}";
+        createRequest = HttpRequest.newBuilder(URI.create(baseUrl))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        String response = client.send(createRequest, HttpResponse.BodyHandlers.ofString()).body();
+        String code = response.replaceAll(".*\"capsuleCode\":\"([A-Z0-9]{8})\".*", "$1");
+        lookupRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/" + code)).GET().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        clientExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public int create() {
+        return burst(createRequest, 201);
+    }
+
+    @Benchmark
+    public int lookup() {
+        return burst(lookupRequest, 200);
+    }
+
+    private int burst(HttpRequest request, int expectedStatus) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            futures[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenAccept(response -> {
+                        if (response.statusCode() != expectedStatus) {
+                            throw new IllegalStateException("unexpected status " + response.statusCode());
+                        }
+                    });
+        }
+        CompletableFuture.allOf(futures).join();
+        return futures.length;
+    }
+}
@@ -0,0 +1,56 @@
+package com.timecapsule.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.timecapsule.dto.ApiResponse;
+import com.timecapsule.dto.CapsuleResponse;
+import com.timecapsule.dto.PageResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 管理员分页列表响应 ApiResponse<PageResponse<CapsuleResponse>> 的 Jackson 序列化
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseSerializationBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<PageResponse<CapsuleResponse>> response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 与 application.properties 中的 spring.jackson.* 配置保持一致
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .timeZone(TimeZone.getTimeZone("GMT+8"))
+                .simpleDateFormat("yyyy-MM-dd HH:mm:ss")
+                .build();
+
+        List<CapsuleResponse> items = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            LocalDateTime openTime = i % 2 == 0
+                    ? LocalDateTime.now().plusDays(30 + i)
+                    : LocalDateTime.now().minusDays(i);
+            items.add(CapsuleResponse.fromEntity(BenchmarkData.capsule(i, openTime), true));
+        }
+        PageResponse.Pagination pagination = new PageResponse.Pagination(1, pageSize, 100_000, 100_000 / pageSize);
+        response = ApiResponse.success("获取成功", new PageResponse<>(items, pagination));
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
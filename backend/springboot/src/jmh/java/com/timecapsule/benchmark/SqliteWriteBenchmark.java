@@ -0,0 +1,73 @@
+package com.timecapsule.benchmark;
+
+import com.timecapsule.dto.CapsuleCreateRequest;
+import com.timecapsule.service.CapsuleService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQLite 存储模式下的胶囊创建吞吐量，数据库文件写在临时目录（synchronous=FULL，每次提交 fsync）
+ *
+ * per-request：每个请求在调用线程中单独提交；group-commit：经写队列由写线程合并提交；
+ * write-behind：写入本地日志（按组 fsync）后即返回，后台批量入库。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SqliteWriteBenchmark {
+
+    @Param({"per-request", "group-commit", "write-behind"})
+    public String mode;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private CapsuleService capsuleService;
+    private CapsuleCreateRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("sqlite-benchmark");
+        String file = directory.resolve("timecapsule.db").toString();
+        context = BenchmarkContexts.start(
+                "spring.profiles.active=sqlite",
+                "spring.datasource.url=jdbc:sqlite:" + file + "?journal_mode=WAL&synchronous=FULL&busy_timeout=5000&transaction_mode=IMMEDIATE",
+                "capsule.datasource.replicas.urls=jdbc:sqlite:" + file + "?open_mode=1&busy_timeout=5000",
+                "capsule.health.disk-path=" + directory,
+                "capsule.sqlite.write-queue.enabled=" + "group-commit".equals(mode),
+                "capsule.write-behind.enabled=" + "write-behind".equals(mode),
+                "capsule.write-behind.journal-dir=" + directory.resolve("journal"));
+        capsuleService = context.getBean(CapsuleService.class);
+
+        request = new CapsuleCreateRequest();
+        request.setTitle("给未来的自己");
+        request.setContent("一年后的今天，希望你已经实现了目标。");
+        request.setCreatorNickname("小明");
+        request.setOpenTime(LocalDateTime.now().plusYears(1));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        try (var files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Object createCapsule() {
+        return capsuleService.createCapsule(request);
+    }
+}
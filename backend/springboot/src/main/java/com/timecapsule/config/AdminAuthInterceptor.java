@@ -0,0 +1,67 @@
+package com.timecapsule.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.timecapsule.dto.ApiResponse;
+import com.timecapsule.exception.ErrorCode;
+import com.timecapsule.service.AdminService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+
+/**
+ * 管理员接口认证拦截器
+ *
+ * 统一校验 /admin/** 请求的 Bearer Token，校验失败直接返回预先序列化的 401 响应，
+ * 不再进入控制器，也不经过异常处理流程。
+ */
+@Component
+public class AdminAuthInterceptor implements HandlerInterceptor {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final AdminService adminService;
+    private final byte[] unauthorizedBody;
+
+    public AdminAuthInterceptor(AdminService adminService, ObjectMapper objectMapper) throws JsonProcessingException {
+        this.adminService = adminService;
+        this.unauthorizedBody = objectMapper.writeValueAsBytes(
+                ApiResponse.error(ErrorCode.UNAUTHORIZED.getCode(), "未授权访问"));
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) throws IOException {
+        if (CorsUtils.isPreFlightRequest(request)) {
+            return true;
+        }
+
+        String token = extractToken(request);
+        if (token != null && adminService.validateToken(token)) {
+            return true;
+        }
+
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(unauthorizedBody.length);
+        response.getOutputStream().write(unauthorizedBody);
+        return false;
+    }
+
+    /**
+     * 从请求头中提取JWT token
+     */
+    private String extractToken(HttpServletRequest request) {
+        String bearerToken = request.getHeader("Authorization");
+        if (bearerToken != null && bearerToken.startsWith(BEARER_PREFIX)) {
+            return bearerToken.substring(BEARER_PREFIX.length());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,76 @@
+package com.timecapsule.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.lang.NonNull;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 为数据源加上连接准入控制，默认在开启虚拟线程时生效
+ */
+@Configuration
+@ConditionalOnProperty(name = "capsule.datasource.admission.enabled", havingValue = "true")
+@Slf4j
+public class DataSourceAdmissionConfig {
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    public static BeanPostProcessor admissionControlDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof AdmissionControlDataSource) {
+                    return bean;
+                }
+                if (bean instanceof LazyConnectionDataSourceProxy proxy
+                        && proxy.getTargetDataSource() instanceof ReplicaRoutingDataSource) {
+                    // 读写分离时由 ReplicaDataSourceConfig 在每个连接池前分别加准入控制
+                    return bean;
+                }
+                int maxConcurrency = environment.getProperty("capsule.datasource.admission.max-concurrency", Integer.class, 0);
+                if (maxConcurrency <= 0 && bean instanceof HikariDataSource hikari) {
+                    maxConcurrency = hikari.getMaximumPoolSize();
+                }
+                if (maxConcurrency <= 0) {
+                    // 与 HikariCP 默认的 maximumPoolSize 一致
+                    maxConcurrency = DEFAULT_POOL_SIZE;
+                }
+                Duration timeout = environment.getProperty("capsule.datasource.admission.timeout", Duration.class, Duration.ofSeconds(30));
+                log.info("数据源连接准入控制: bean={}, maxConcurrency={}, timeout={}", beanName, maxConcurrency, timeout);
+                return new AdmissionControlDataSource(dataSource, maxConcurrency, timeout);
+            }
+        };
+    }
+
+    /**
+     * 准入控制的持有数与排队数，连接池自身的指标由 HikariCP 提供
+     */
+    @Bean
+    public MeterBinder admissionControlMetrics(Map<String, DataSource> dataSources) {
+        return registry -> dataSources.forEach((name, dataSource) -> {
+            if (dataSource instanceof AdmissionControlDataSource admission) {
+                Gauge.builder("capsule.datasource.admission.active", admission, AdmissionControlDataSource::getActive)
+                        .tag("name", name)
+                        .register(registry);
+                Gauge.builder("capsule.datasource.admission.waiting", admission, AdmissionControlDataSource::getWaiting)
+                        .tag("name", name)
+                        .register(registry);
+                Gauge.builder("capsule.datasource.admission.max", admission, AdmissionControlDataSource::getMaxConcurrency)
+                        .tag("name", name)
+                        .register(registry);
+            }
+        });
+    }
+}
@@ -0,0 +1,111 @@
+package com.timecapsule.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按调用点对 INFO 日志采样的 TurboFilter，在 logback-spring.xml 中配置
+ *
+ * 调用点由 logger 和消息模板确定。每个调用点在每个 tick 内前 initial 条照常输出，
+ * 之后每 thereafter 条输出一条，其余在格式化和入队之前直接丢弃。
+ * 只处理 loggerPrefix 下的 INFO 日志，WARN、ERROR 和带异常的日志不采样。
+ * 调用点数量超过 maxCallSites 后，新出现的调用点不再采样。
+ */
+public class LogSamplingFilter extends TurboFilter {
+
+    private String loggerPrefix = "com.timecapsule";
+    private int initial = 10;
+    private int thereafter = 100;
+    private long tickMillis = 1000;
+    private int maxCallSites = 4096;
+
+    private final Map<String, Map<String, AtomicLong>> callSites = new ConcurrentHashMap<>();
+    private final AtomicInteger callSiteCount = new AtomicInteger();
+    private final LongAdder suppressed = new LongAdder();
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level != Level.INFO || format == null || t != null || !isStarted()) {
+            return FilterReply.NEUTRAL;
+        }
+        // 不能调用 logger.isInfoEnabled()，否则会再次进入 TurboFilter
+        if (!Level.INFO.isGreaterOrEqual(logger.getEffectiveLevel()) || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        AtomicLong state = callSite(logger.getName(), format);
+        if (state == null || sample(state)) {
+            return FilterReply.NEUTRAL;
+        }
+        suppressed.increment();
+        return FilterReply.DENY;
+    }
+
+    /**
+     * 因采样被丢弃的日志条数
+     */
+    public long getSuppressed() {
+        return suppressed.sum();
+    }
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+
+    public void setInitial(int initial) {
+        this.initial = initial;
+    }
+
+    public void setThereafter(int thereafter) {
+        this.thereafter = Math.max(1, thereafter);
+    }
+
+    public void setTickMillis(long tickMillis) {
+        this.tickMillis = Math.max(1, tickMillis);
+    }
+
+    public void setMaxCallSites(int maxCallSites) {
+        this.maxCallSites = maxCallSites;
+    }
+
+    private AtomicLong callSite(String loggerName, String format) {
+        Map<String, AtomicLong> formats = callSites.get(loggerName);
+        if (formats == null) {
+            formats = callSites.computeIfAbsent(loggerName, name -> new ConcurrentHashMap<>());
+        }
+        AtomicLong state = formats.get(format);
+        if (state != null) {
+            return state;
+        }
+        if (callSiteCount.get() >= maxCallSites) {
+            return null;
+        }
+        return formats.computeIfAbsent(format, key -> {
+            callSiteCount.incrementAndGet();
+            return new AtomicLong();
+        });
+    }
+
+    /**
+     * 状态的高 32 位为 tick 序号（取低 32 位），低 32 位为本 tick 内的计数，一次 CAS 同时完成换 tick 和计数
+     */
+    private boolean sample(AtomicLong state) {
+        long tick = (System.currentTimeMillis() / tickMillis) & 0xFFFFFFFFL;
+        while (true) {
+            long current = state.get();
+            long next = (current >>> 32) == tick ? current + 1 : (tick << 32) | 1;
+            if (state.compareAndSet(current, next)) {
+                int count = (int) next;
+                return count <= initial || (count - initial) % thereafter == 0;
+            }
+        }
+    }
+}
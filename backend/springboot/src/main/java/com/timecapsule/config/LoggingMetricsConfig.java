@@ -0,0 +1,44 @@
+package com.timecapsule.config;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 日志管道的监控指标：异步队列的积压与剩余容量、采样丢弃的条数
+ */
+@Configuration
+public class LoggingMetricsConfig {
+
+    @Bean
+    public MeterBinder loggingMetrics() {
+        return registry -> {
+            if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+                return;
+            }
+            Appender<?> appender = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).getAppender("ASYNC");
+            if (appender instanceof AsyncAppender async) {
+                Gauge.builder("capsule.logging.async.queued", async, AsyncAppender::getNumberOfElementsInQueue)
+                        .description("异步日志队列中等待输出的条数")
+                        .register(registry);
+                Gauge.builder("capsule.logging.async.remaining", async, AsyncAppender::getRemainingCapacity)
+                        .description("异步日志队列的剩余容量")
+                        .register(registry);
+            }
+            for (TurboFilter filter : context.getTurboFilterList()) {
+                if (filter instanceof LogSamplingFilter sampling) {
+                    FunctionCounter.builder("capsule.logging.sampled.suppressed", sampling, LogSamplingFilter::getSuppressed)
+                            .description("因采样被丢弃的日志条数")
+                            .register(registry);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package com.timecapsule.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 只覆盖未删除胶囊的部分索引
+ *
+ * 业务查询都带 is_deleted = false 条件，而软删除的胶囊在归档前会一直留在 capsules 表中。
+ * 在支持部分索引的数据库（PostgreSQL、SQLite）上为未删除的胶囊单独建索引，索引只包含在线数据，
+ * 另为归档任务建一个只包含已删除胶囊的索引。其他数据库不支持部分索引，仍使用实体上声明的完整索引。
+ *
+ * 条件中的布尔字面量必须与 Hibernate 生成的 SQL 一致，否则查询规划器不会选用部分索引。
+ * SQLite 没有统计信息时总是优先使用等值条件匹配的完整索引，因此建索引后按抽样更新一次 capsules 表的统计信息。
+ */
+@Component
+@Slf4j
+public class PartialIndexInitializer {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public PartialIndexInitializer(DataSource dataSource,
+                                   @Value("${capsule.database.partial-indexes.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        if (!enabled) {
+            return;
+        }
+        String product;
+        try {
+            product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(), "getDatabaseProductName");
+        } catch (MetaDataAccessException e) {
+            log.warn("无法识别数据库类型，跳过部分索引: {}", e.getMessage());
+            return;
+        }
+        String live;
+        String deleted;
+        switch (product) {
+            case "PostgreSQL" -> {
+                live = "is_deleted = false";
+                deleted = "is_deleted = true";
+            }
+            case "SQLite" -> {
+                live = "is_deleted = 0";
+                deleted = "is_deleted = 1";
+            }
+            default -> {
+                log.info("数据库不支持部分索引，使用完整索引: {}", product);
+                return;
+            }
+        }
+        List<String> statements = new ArrayList<>(List.of(
+                "CREATE INDEX IF NOT EXISTS idx_capsules_live_create_time_id ON capsules (create_time, id) WHERE " + live,
+                "CREATE INDEX IF NOT EXISTS idx_capsules_live_open_time_id ON capsules (open_time, id) WHERE " + live,
+                "CREATE INDEX IF NOT EXISTS idx_capsules_deleted_id ON capsules (id) WHERE " + deleted));
+        if ("SQLite".equals(product)) {
+            // 同一连接上生效；每个索引最多抽样 1000 行，大表上也很快完成
+            statements.add("PRAGMA analysis_limit = 1000");
+            statements.add("ANALYZE capsules");
+        }
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    for (String sql : statements) {
+                        statement.execute(sql);
+                    }
+                }
+                return null;
+            });
+            log.info("部分索引已就绪: database={}", product);
+        } catch (RuntimeException e) {
+            log.warn("创建部分索引失败，继续使用完整索引: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.timecapsule.config;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.timecapsule.dto.ApiResponse;
+import com.timecapsule.exception.ErrorCode;
+import com.timecapsule.util.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按客户端 IP 限流的过滤器
+ *
+ * 创建胶囊、批量创建、查询胶囊和管理员登录分别使用独立的 {@link RateLimiter}。批量创建按请求中的胶囊数
+ * 扣除许可：过滤器先读出请求体并数出 JSON 数组的元素个数，再把请求体交给后续处理；无法解析时按 1 个计算，
+ * 由接口返回参数错误。超出限制的请求在进入 DispatcherServlet 之前直接返回预先序列化的 429 响应，
+ * 并通过 Retry-After 告知需要等待的秒数。
+ * 部署在反向代理之后时需配置 server.forward-headers-strategy，使 getRemoteAddr 返回真实客户端地址。
+ */
+@Component
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final ObjectMapper objectMapper;
+    private final RateLimiter createLimiter;
+    private final RateLimiter batchLimiter;
+    private final RateLimiter lookupLimiter;
+    private final RateLimiter loginLimiter;
+    private final byte[] rejectedBody;
+
+    public RateLimitFilter(ObjectMapper objectMapper,
+                           @Value("${capsule.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${capsule.rate-limit.slots:65536}") int slots,
+                           @Value("${capsule.rate-limit.create.limit:20}") int createLimit,
+                           @Value("${capsule.rate-limit.create.period:PT1M}") Duration createPeriod,
+                           @Value("${capsule.rate-limit.batch.limit:500}") int batchLimit,
+                           @Value("${capsule.rate-limit.batch.period:PT1H}") Duration batchPeriod,
+                           @Value("${capsule.rate-limit.lookup.limit:120}") int lookupLimit,
+                           @Value("${capsule.rate-limit.lookup.period:PT1M}") Duration lookupPeriod,
+                           @Value("${capsule.rate-limit.login.limit:5}") int loginLimit,
+                           @Value("${capsule.rate-limit.login.period:PT1M}") Duration loginPeriod)
+            throws JsonProcessingException {
+        this.enabled = enabled;
+        this.objectMapper = objectMapper;
+        this.createLimiter = new RateLimiter(createLimit, createPeriod, slots);
+        this.batchLimiter = new RateLimiter(batchLimit, batchPeriod, slots);
+        this.lookupLimiter = new RateLimiter(lookupLimit, lookupPeriod, slots);
+        this.loginLimiter = new RateLimiter(loginLimit, loginPeriod, slots);
+        this.rejectedBody = objectMapper.writeValueAsBytes(
+                ApiResponse.error(ErrorCode.TOO_MANY_REQUESTS.getCode(), "请求过于频繁，请稍后再试"));
+        log.info("限流初始化: enabled={}, slots={}, create={}/{}, batch={}/{}, lookup={}/{}, login={}/{}", enabled,
+                createLimiter.capacity(), createLimit, createPeriod, batchLimit, batchPeriod,
+                lookupLimit, lookupPeriod, loginLimit, loginPeriod);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        if ("POST".equals(request.getMethod()) && "/capsules/batch".equals(request.getServletPath())) {
+            CachedBodyRequest cached = new CachedBodyRequest(request);
+            long waitNanos = batchLimiter.tryAcquire(request.getRemoteAddr(), countItems(cached.body));
+            if (waitNanos > 0) {
+                reject(request, response, waitNanos);
+                return;
+            }
+            filterChain.doFilter(cached, response);
+            return;
+        }
+        RateLimiter limiter = selectLimiter(request);
+        if (limiter != null) {
+            long waitNanos = limiter.tryAcquire(request.getRemoteAddr());
+            if (waitNanos > 0) {
+                reject(request, response, waitNanos);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private RateLimiter selectLimiter(HttpServletRequest request) {
+        String path = request.getServletPath();
+        String method = request.getMethod();
+        if ("GET".equals(method)) {
+            return path.startsWith("/capsules/") ? lookupLimiter : null;
+        }
+        if ("POST".equals(method)) {
+            if (path.equals("/capsules")) {
+                return createLimiter;
+            }
+            return path.equals("/admin/login") ? loginLimiter : null;
+        }
+        return null;
+    }
+
+    /**
+     * 批量创建请求体中 JSON 数组的元素个数；不是数组或无法解析时返回 1
+     */
+    private int countItems(byte[] body) {
+        int count = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return 1;
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                parser.skipChildren();
+                count++;
+            }
+        } catch (IOException e) {
+            // 格式错误的请求体由接口返回参数错误
+        }
+        return Math.max(1, count);
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long waitNanos) throws IOException {
+        response.setStatus(ErrorCode.TOO_MANY_REQUESTS.getHttpStatus().value());
+        long retryAfterSeconds = TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        // 请求未进入 Spring MVC，补上跨域头，浏览器才能读到 429
+        if (request.getHeader(HttpHeaders.ORIGIN) != null) {
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(rejectedBody.length);
+        response.getOutputStream().write(rejectedBody);
+    }
+
+    /**
+     * 请求体已被读出的请求，后续处理从缓存的字节中读取
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(@NonNull byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // 请求体已全部在内存中，立即通知可读和读取完成
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() != null
+                    ? Charset.forName(getCharacterEncoding()) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
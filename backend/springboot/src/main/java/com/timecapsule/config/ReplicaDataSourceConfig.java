@@ -0,0 +1,146 @@
+package com.timecapsule.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写分离：主库按 spring.datasource.* 配置，只读副本共用主库的用户名和密码（可单独配置）
+ *
+ * 开启连接准入控制时，主库和每个副本的连接池前分别加一层准入控制，而不是在路由数据源外统一限制。
+ */
+@Configuration
+@ConditionalOnProperty(name = "capsule.datasource.replicas.enabled", havingValue = "true")
+@Slf4j
+public class ReplicaDataSourceConfig {
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private ReplicaRoutingDataSource routingDataSource;
+    private int healthCheckTimeoutSeconds;
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties,
+                                 Environment environment,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${capsule.datasource.replicas.urls:}") List<String> urls,
+                                 @Value("${capsule.datasource.replicas.selection:round-robin}") String selection,
+                                 @Value("${capsule.datasource.replicas.pool-size:0}") int replicaPoolSize,
+                                 @Value("${capsule.datasource.replicas.connection-timeout:PT2S}") Duration connectionTimeout,
+                                 @Value("${capsule.datasource.replicas.health-check-timeout:PT2S}") Duration healthCheckTimeout) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primaryPool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primaryPool));
+        primaryPool.setPoolName("primary");
+        primaryPool.setMetricRegistry(meterRegistry);
+        pools.add(primaryPool);
+
+        String username = environment.getProperty("capsule.datasource.replicas.username", properties.determineUsername());
+        String password = environment.getProperty("capsule.datasource.replicas.password", properties.determinePassword());
+        int poolSize = replicaPoolSize > 0 ? replicaPoolSize : poolSize(primaryPool);
+        List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String name = "replica-" + (replicas.size() + 1);
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .username(username)
+                    .password(password)
+                    .build();
+            pool.setPoolName(name);
+            pool.setMaximumPoolSize(poolSize);
+            // 副本只承担只读事务；以只读方式打开的连接（如 SQLite 的 open_mode=1）不允许再改为可写
+            pool.setReadOnly(true);
+            // 副本不可用时尽快失败并改用主库；启动时不要求副本可用
+            pool.setConnectionTimeout(connectionTimeout.toMillis());
+            pool.setInitializationFailTimeout(-1);
+            pool.setMetricRegistry(meterRegistry);
+            pools.add(pool);
+            replicas.add(new ReplicaRoutingDataSource.Replica(name, pool, withAdmission(environment, pool, poolSize)));
+        }
+        if (replicas.isEmpty()) {
+            log.warn("已开启读写分离但未配置只读副本，所有请求都使用主库");
+        }
+
+        boolean leastLoaded = "least-loaded".equals(selection);
+        routingDataSource = new ReplicaRoutingDataSource(
+                withAdmission(environment, primaryPool, poolSize(primaryPool)), replicas, leastLoaded);
+        healthCheckTimeoutSeconds = (int) Math.max(1, healthCheckTimeout.toSeconds());
+        log.info("读写分离: replicas={}, selection={}, replicaPoolSize={}",
+                replicas.size(), leastLoaded ? "least-loaded" : "round-robin", poolSize);
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * 副本可用状态、路由到各副本的连接数、因副本不可用或繁忙改用主库的次数
+     */
+    @Bean
+    public MeterBinder replicaRoutingMetrics() {
+        return registry -> {
+            for (ReplicaRoutingDataSource.Replica replica : routingDataSource.getReplicas()) {
+                Gauge.builder("capsule.datasource.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                        .tag("replica", replica.getName())
+                        .register(registry);
+                FunctionCounter.builder("capsule.datasource.replica.reads", replica, ReplicaRoutingDataSource.Replica::getReads)
+                        .tag("replica", replica.getName())
+                        .register(registry);
+            }
+            FunctionCounter.builder("capsule.datasource.replica.fallbacks", routingDataSource, ReplicaRoutingDataSource::getFallbacks)
+                    .register(registry);
+        };
+    }
+
+    @Scheduled(fixedDelayString = "${capsule.datasource.replicas.health-check-interval:PT5S}")
+    public void checkReplicas() {
+        if (routingDataSource != null) {
+            routingDataSource.checkReplicas(healthCheckTimeoutSeconds);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        for (HikariDataSource pool : pools) {
+            pool.close();
+        }
+    }
+
+    private static DataSource withAdmission(Environment environment, HikariDataSource pool, int poolSize) {
+        if (!environment.getProperty("capsule.datasource.admission.enabled", Boolean.class, false)) {
+            return pool;
+        }
+        int maxConcurrency = environment.getProperty("capsule.datasource.admission.max-concurrency", Integer.class, 0);
+        Duration timeout = environment.getProperty("capsule.datasource.admission.timeout", Duration.class, Duration.ofSeconds(30));
+        return new AdmissionControlDataSource(pool, maxConcurrency > 0 ? maxConcurrency : poolSize, timeout);
+    }
+
+    /**
+     * 未配置 maximumPoolSize 时 HikariCP 在启动连接池时才设为默认值
+     */
+    private static int poolSize(HikariDataSource pool) {
+        return pool.getMaximumPoolSize() > 0 ? pool.getMaximumPoolSize() : DEFAULT_POOL_SIZE;
+    }
+}
@@ -0,0 +1,242 @@
+package com.timecapsule.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.lang.NonNull;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 读写分离数据源
+ *
+ * 只读事务（@Transactional(readOnly = true)，包括 Spring Data 仓库方法自带的只读事务）路由到只读副本，
+ * 其余全部路由到主库。外层必须包一层 LazyConnectionDataSourceProxy：JPA 在事务开始时就获取连接，
+ * 此时只读标记尚未设置，延迟到执行第一条语句时再获取连接，路由才能看到只读标记。
+ *
+ * 副本按轮询或最少活跃连接选择。定期检查副本连接，不可用的副本暂时移出；建立或校验副本连接失败时
+ * 立即标记为不可用并改用主库。副本连接池已满、等待连接或准入超时只说明副本繁忙，本次读取改用主库，
+ * 副本仍留在轮换中。没有可用副本时只读事务也走主库。
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> forcePrimary = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final boolean leastLoaded;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, boolean leastLoaded) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.leastLoaded = leastLoaded;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (Replica replica : this.replicas) {
+            targets.put(replica.name, replica.dataSource);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * 在主库上执行，即使处于只读事务中；用于刚写入的数据，避免读到复制延迟之前的副本
+     */
+    public static <T> T runOnPrimary(Supplier<T> action) {
+        Boolean previous = forcePrimary.get();
+        forcePrimary.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                forcePrimary.remove();
+            } else {
+                forcePrimary.set(previous);
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Replica replica = selectReplica();
+        return replica != null ? replica.name : PRIMARY;
+    }
+
+    @Override
+    @NonNull
+    public Connection getConnection() throws SQLException {
+        Replica replica = selectReplica();
+        if (replica == null) {
+            return primary.getConnection();
+        }
+        try {
+            Connection connection = replica.dataSource.getConnection();
+            replica.reads.increment();
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            fallBack(replica, e);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    @NonNull
+    public Connection getConnection(@NonNull String username, @NonNull String password) throws SQLException {
+        Replica replica = selectReplica();
+        if (replica == null) {
+            return primary.getConnection(username, password);
+        }
+        try {
+            Connection connection = replica.dataSource.getConnection(username, password);
+            replica.reads.increment();
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            fallBack(replica, e);
+            return primary.getConnection(username, password);
+        }
+    }
+
+    /**
+     * 检查所有副本（包括已移出的），恢复可用的副本
+     */
+    public void checkReplicas(int timeoutSeconds) {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (connection.isValid(timeoutSeconds)) {
+                    if (!replica.healthy) {
+                        replica.healthy = true;
+                        log.info("只读副本恢复可用: {}", replica.name);
+                    }
+                } else {
+                    markDown(replica, null);
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!isBusy(e)) {
+                    markDown(replica, e);
+                }
+            }
+        }
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * 只读事务因副本不可用或繁忙而改用主库的次数
+     */
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    private Replica selectReplica() {
+        if (replicas.isEmpty() || forcePrimary.get() != null
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        Replica selected = null;
+        int selectedLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.healthy) {
+                continue;
+            }
+            if (!leastLoaded) {
+                return replica;
+            }
+            int load = replica.load();
+            if (load < selectedLoad) {
+                selected = replica;
+                selectedLoad = load;
+            }
+        }
+        return selected;
+    }
+
+    private void fallBack(Replica replica, Exception e) {
+        fallbacks.increment();
+        if (isBusy(e)) {
+            log.debug("只读副本繁忙，本次读取改用主库: {}, {}", replica.name, e.getMessage());
+        } else {
+            markDown(replica, e);
+        }
+    }
+
+    /**
+     * 等待连接超时而不是连接失败：HikariCP 等待超时时把最近一次建立连接的异常作为 cause，
+     * 连接都能正常建立时没有 cause；准入控制超时同样没有 cause
+     */
+    private static boolean isBusy(Exception e) {
+        return e instanceof SQLTransientConnectionException && e.getCause() == null;
+    }
+
+    private static void markDown(Replica replica, Exception e) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("只读副本不可用，暂时改用主库: {}, {}", replica.name, e != null ? e.getMessage() : "连接校验未通过");
+        }
+    }
+
+    /**
+     * 只读副本
+     */
+    public static final class Replica {
+
+        private final String name;
+        private final HikariDataSource pool;
+        private final DataSource dataSource;
+        private final LongAdder reads = new LongAdder();
+        private volatile boolean healthy = true;
+
+        /**
+         * @param dataSource 实际使用的数据源，可以是 pool 外包装的准入控制
+         */
+        public Replica(String name, HikariDataSource pool, DataSource dataSource) {
+            this.name = name;
+            this.pool = pool;
+            this.dataSource = dataSource;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        /**
+         * 路由到该副本的连接数
+         */
+        public long getReads() {
+            return reads.sum();
+        }
+
+        /**
+         * 活跃连接数加等待连接的线程数，连接池尚未启动时为 0
+         */
+        int load() {
+            HikariPoolMXBean pool = this.pool.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+        }
+    }
+}
@@ -4,16 +4,30 @@ import com.timecapsule.dto.*;
 import com.timecapsule.exception.BusinessException;
 import com.timecapsule.exception.ErrorCode;
 import com.timecapsule.service.AdminService;
+import com.timecapsule.service.CapsuleArchiver;
+import com.timecapsule.service.CapsuleCache;
+import com.timecapsule.service.CapsuleCodeFilter;
+import com.timecapsule.service.CapsuleExportService;
+import com.timecapsule.service.CapsuleOpenScheduler;
+import com.timecapsule.service.CapsuleResponseCache;
+import com.timecapsule.service.CapsuleSearchIndex;
 import com.timecapsule.service.CapsuleService;
+import com.timecapsule.service.CapsuleStatsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
 @RestController
 @RequestMapping("/admin")
@@ -24,6 +38,14 @@ public class AdminController {
     
     private final AdminService adminService;
     private final CapsuleService capsuleService;
+    private final CapsuleCache capsuleCache;
+    private final CapsuleCodeFilter codeFilter;
+    private final CapsuleExportService capsuleExportService;
+    private final CapsuleOpenScheduler openScheduler;
+    private final CapsuleResponseCache responseCache;
+    private final CapsuleArchiver archiver;
+    private final CapsuleSearchIndex searchIndex;
+    private final CapsuleStatsService capsuleStats;
     
     /**
      * 管理员登录
@@ -49,20 +71,82 @@ public class AdminController {
             @Parameter(description = "每页数量", example = "20")
             @RequestParam(defaultValue = "20") int size,
             @Parameter(description = "排序字段和方向", example = "createdAt,desc")
-            @RequestParam(defaultValue = "createdAt,desc") String sort,
-            HttpServletRequest request) {
+            @RequestParam(defaultValue = "createdAt,desc") String sort) {
         log.info("获取所有胶囊列表: page={}, size={}", page, size);
         
-        // 验证管理员权限
-        String token = extractToken(request);
-        if (token == null || !adminService.validateToken(token)) {
-            throw new BusinessException(ErrorCode.UNAUTHORIZED, "未授权访问");
-        }
-        
         PageResponse<CapsuleResponse> capsules = capsuleService.getAllCapsules(page, size, sort);
         return ResponseEntity.ok(ApiResponse.success("获取成功", capsules));
     }
     
+    /**
+     * 获取所有胶囊（需要管理员权限）- 键集分页
+     * 
+     * 请求中带有 cursor 参数时进入此模式，首页传空字符串
+     */
+    @Operation(summary = "游标分页获取所有胶囊", description = "按创建时间键集分页，不统计总数，需要Bearer Token认证")
+    @GetMapping(value = "/capsules", params = "cursor")
+    public ResponseEntity<ApiResponse<CursorPageResponse<CapsuleResponse>>> getCapsulesByCursor(
+            @Parameter(description = "上一页返回的 nextCursor，首页传空字符串", example = "")
+            @RequestParam String cursor,
+            @Parameter(description = "每页数量", example = "20")
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "排序方向，仅支持 createdAt", example = "createdAt,desc")
+            @RequestParam(defaultValue = "createdAt,desc") String sort,
+            @Parameter(description = "是否返回近似总数", example = "false")
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        log.info("游标分页获取胶囊列表: size={}", size);
+        
+        CursorPageResponse<CapsuleResponse> capsules = capsuleService.getCapsulesByCursor(cursor, size, sort, withTotal);
+        return ResponseEntity.ok(ApiResponse.success("获取成功", capsules));
+    }
+    
+    /**
+     * 按标题或昵称搜索胶囊（需要管理员权限）
+     */
+    @Operation(summary = "搜索胶囊", description = "按标题或发布者昵称的子串搜索，返回胶囊码，需要Bearer Token认证")
+    @GetMapping("/capsules/search")
+    public ResponseEntity<ApiResponse<PageResponse<String>>> searchCapsules(
+            @Parameter(description = "搜索关键字，匹配包含该子串的标题或昵称，不区分大小写和全角半角", example = "小明")
+            @RequestParam String q,
+            @Parameter(description = "搜索字段：all、title 或 nickname", example = "all")
+            @RequestParam(defaultValue = CapsuleSearchIndex.FIELD_ALL) String field,
+            @Parameter(description = "页码（从1开始）", example = "1")
+            @RequestParam(defaultValue = "1") int page,
+            @Parameter(description = "每页数量", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("搜索胶囊: field={}, page={}, size={}", field, page, size);
+        
+        return ResponseEntity.ok(ApiResponse.success("获取成功", searchIndex.search(q, field, page, size)));
+    }
+    
+    /**
+     * 导出所有胶囊（需要管理员权限）
+     * 
+     * 逐行流式写出，不在内存中保留完整列表
+     */
+    @Operation(summary = "导出所有胶囊", description = "以 NDJSON 或 CSV 格式流式导出所有未删除的胶囊，需要Bearer Token认证")
+    @GetMapping("/capsules/export")
+    public ResponseEntity<StreamingResponseBody> exportCapsules(
+            @Parameter(description = "导出格式：ndjson 或 csv", example = "ndjson")
+            @RequestParam(defaultValue = "ndjson") String format) {
+        log.info("导出胶囊请求: format={}", format);
+        
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+        if ("csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=capsules-" + timestamp + ".csv")
+                    .body(capsuleExportService::exportCsv);
+        }
+        if ("ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=capsules-" + timestamp + ".ndjson")
+                    .body(capsuleExportService::exportNdjson);
+        }
+        throw new BusinessException(ErrorCode.VALIDATION_ERROR, "不支持的导出格式: " + format);
+    }
+    
     /**
      * 删除胶囊（需要管理员权限）
      */
@@ -70,16 +154,9 @@ public class AdminController {
     @DeleteMapping("/capsules/{capsuleCode}")
     public ResponseEntity<ApiResponse<CapsuleResponse>> deleteCapsule(
             @Parameter(description = "8位胶囊码", example = "A3X9K2M7")
-            @PathVariable String capsuleCode,
-            HttpServletRequest request) {
+            @PathVariable String capsuleCode) {
         log.info("删除胶囊请求: code={}", capsuleCode);
         
-        // 验证管理员权限
-        String token = extractToken(request);
-        if (token == null || !adminService.validateToken(token)) {
-            throw new BusinessException(ErrorCode.UNAUTHORIZED, "未授权访问");
-        }
-        
         // 验证胶囊码格式
         if (!capsuleService.isValidCapsuleCode(capsuleCode)) {
             throw new BusinessException(ErrorCode.INVALID_CAPSULE_CODE, "无效的胶囊码");
@@ -90,13 +167,65 @@ public class AdminController {
     }
     
     /**
-     * 从请求头中提取JWT token
+     * 获取胶囊统计（需要管理员权限）
      */
-    private String extractToken(HttpServletRequest request) {
-        String bearerToken = request.getHeader("Authorization");
-        if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
-            return bearerToken.substring(7);
-        }
-        return null;
+    @Operation(summary = "获取胶囊统计", description = "获取各状态的胶囊数和按小时、按天的创建数，读取内存计数，需要Bearer Token认证")
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<CapsuleStatsResponse>> getStats() {
+        return ResponseEntity.ok(ApiResponse.success("获取成功", capsuleStats.getStats()));
+    }
+    
+    /**
+     * 获取胶囊缓存统计（需要管理员权限）
+     */
+    @Operation(summary = "获取缓存统计", description = "获取胶囊查询缓存的命中率和大小，需要Bearer Token认证")
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ApiResponse<CacheStatsResponse>> getCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success("获取成功", capsuleCache.getStats()));
+    }
+    
+    /**
+     * 获取已开启胶囊响应缓存统计（需要管理员权限）
+     */
+    @Operation(summary = "获取响应缓存统计", description = "获取已开启胶囊响应字节缓存的命中率和大小，需要Bearer Token认证")
+    @GetMapping("/response-cache/stats")
+    public ResponseEntity<ApiResponse<CacheStatsResponse>> getResponseCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success("获取成功", responseCache.getStats()));
+    }
+    
+    /**
+     * 获取胶囊码布隆过滤器统计（需要管理员权限）
+     */
+    @Operation(summary = "获取布隆过滤器统计", description = "获取胶囊码布隆过滤器的内存占用和误判率，需要Bearer Token认证")
+    @GetMapping("/bloom-filter/stats")
+    public ResponseEntity<ApiResponse<BloomFilterStatsResponse>> getBloomFilterStats() {
+        return ResponseEntity.ok(ApiResponse.success("获取成功", codeFilter.getStats()));
+    }
+    
+    /**
+     * 获取胶囊开启调度器统计（需要管理员权限）
+     */
+    @Operation(summary = "获取开启调度器统计", description = "获取时间轮中待开启的胶囊数和触发进度，需要Bearer Token认证")
+    @GetMapping("/open-scheduler/stats")
+    public ResponseEntity<ApiResponse<OpenSchedulerStatsResponse>> getOpenSchedulerStats() {
+        return ResponseEntity.ok(ApiResponse.success("获取成功", openScheduler.getStats()));
+    }
+    
+    /**
+     * 获取软删除胶囊归档统计（需要管理员权限）
+     */
+    @Operation(summary = "获取归档统计", description = "获取已归档或清理的软删除胶囊数和释放的字节数，需要Bearer Token认证")
+    @GetMapping("/archive/stats")
+    public ResponseEntity<ApiResponse<ArchiveStatsResponse>> getArchiveStats() {
+        return ResponseEntity.ok(ApiResponse.success("获取成功", archiver.getStats()));
+    }
+    
+    /**
+     * 获取胶囊搜索索引统计（需要管理员权限）
+     */
+    @Operation(summary = "获取搜索索引统计", description = "获取胶囊搜索索引的文档数、词项数和内存占用，需要Bearer Token认证")
+    @GetMapping("/search-index/stats")
+    public ResponseEntity<ApiResponse<SearchIndexStatsResponse>> getSearchIndexStats() {
+        return ResponseEntity.ok(ApiResponse.success("获取成功", searchIndex.getStats()));
     }
 }
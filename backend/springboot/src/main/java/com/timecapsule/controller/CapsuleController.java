@@ -1,20 +1,37 @@
 package com.timecapsule.controller;
 
 import com.timecapsule.dto.ApiResponse;
+import com.timecapsule.dto.BatchCreateResponse;
 import com.timecapsule.dto.CapsuleCreateRequest;
 import com.timecapsule.dto.CapsuleResponse;
 import com.timecapsule.exception.BusinessException;
 import com.timecapsule.exception.ErrorCode;
+import com.timecapsule.service.CapsuleEventHub;
+import com.timecapsule.service.CapsuleResponseCache;
 import com.timecapsule.service.CapsuleService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/capsules")
@@ -23,7 +40,20 @@ import org.springframework.web.bind.annotation.*;
 @Tag(name = "胶囊管理", description = "胶囊的创建和查询接口")
 public class CapsuleController {
     
+    private static final String MESSAGE_OPENED = "胶囊已开启";
+    
     private final CapsuleService capsuleService;
+    private final CapsuleEventHub capsuleEventHub;
+    private final CapsuleResponseCache responseCache;
+    
+    @Value("${capsule.http-cache.enabled:true}")
+    private boolean httpCacheEnabled;
+    
+    @Value("${capsule.http-cache.opened-max-age:P1D}")
+    private Duration openedMaxAge;
+    
+    @Value("${capsule.http-cache.locked-max-age:PT1M}")
+    private Duration lockedMaxAge;
     
     /**
      * 创建时间胶囊
@@ -39,14 +69,29 @@ public class CapsuleController {
                 .body(ApiResponse.success("胶囊创建成功", response));
     }
     
+    /**
+     * 批量创建时间胶囊
+     */
+    @Operation(summary = "批量创建胶囊", description = "一次创建多个胶囊，按请求顺序返回每一项的结果")
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<BatchCreateResponse>> createCapsules(
+            @RequestBody List<CapsuleCreateRequest> requests) {
+        log.info("收到批量创建胶囊请求: count={}", requests.size());
+        
+        BatchCreateResponse response = capsuleService.createCapsules(requests);
+        return ResponseEntity.ok(ApiResponse.success("批量创建完成", response));
+    }
+    
     /**
      * 根据胶囊码获取胶囊信息
      */
-    @Operation(summary = "获取胶囊", description = "根据胶囊码获取胶囊信息，未到开启时间不返回内容")
+    @Operation(summary = "获取胶囊", description = "根据胶囊码获取胶囊信息，未到开启时间不返回内容；支持 If-None-Match 条件请求")
     @GetMapping("/{capsuleCode}")
     public ResponseEntity<ApiResponse<CapsuleResponse>> getCapsule(
             @Parameter(description = "8位胶囊码", example = "A3X9K2M7")
-            @PathVariable String capsuleCode) {
+            @PathVariable String capsuleCode,
+            HttpServletRequest request,
+            HttpServletResponse servletResponse) throws IOException {
         log.info("收到查询胶囊请求: code={}", capsuleCode);
         
         // 验证胶囊码格式
@@ -54,9 +99,105 @@ public class CapsuleController {
             throw new BusinessException(ErrorCode.INVALID_CAPSULE_CODE, "无效的胶囊码");
         }
         
+        // 已开启胶囊的响应不再变化，命中时直接写出缓存的字节；未命中时在读取胶囊前记下失效序号
+        long stamp = responseCache.stamp();
+        CapsuleResponseCache.Entry cached = responseCache.get(capsuleCode);
+        if (cached != null) {
+            writeCached(cached, request, servletResponse);
+            return null;
+        }
+        
         CapsuleResponse response = capsuleService.getCapsuleByCode(capsuleCode);
+        String message = response.getCanOpen() ? MESSAGE_OPENED : "胶囊尚未到开启时间";
+        // ETag、缓存头和响应缓存都由同一个响应决定；已开启却没有内容的响应不可缓存，也不带 ETag
+        if (response.getCanOpen() && response.getContent() == null) {
+            log.warn("已开启胶囊的响应缺少内容，不缓存: code={}", capsuleCode);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .body(ApiResponse.success(message, response));
+        }
+        if (response.getCanOpen() && responseCache.isEnabled()) {
+            CapsuleResponseCache.Entry entry = responseCache.put(capsuleCode, stamp,
+                    ApiResponse.success(MESSAGE_OPENED, response), capsuleETag(response));
+            writeCached(entry, request, servletResponse);
+            return null;
+        }
+        
+        if (!httpCacheEnabled) {
+            return ResponseEntity.ok(ApiResponse.success(message, response));
+        }
+        // 请求的 If-None-Match 与 ETag 相同时，Spring 返回 304 并保留这里设置的缓存头
+        long maxAgeSeconds = cacheMaxAgeSeconds(response);
+        return ResponseEntity.ok()
+                .eTag(capsuleETag(response))
+                .cacheControl(maxAgeSeconds > 0
+                        ? CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic()
+                        : CacheControl.noCache())
+                .headers(headers -> headers.setExpires(System.currentTimeMillis() + maxAgeSeconds * 1000))
+                .body(ApiResponse.success(message, response));
+    }
+    
+    /**
+     * 把缓存的已开启胶囊响应直接写入响应流；客户端接受 gzip 且有压缩结果时写出压缩后的字节
+     */
+    private void writeCached(CapsuleResponseCache.Entry entry, HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        if (httpCacheEnabled) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL,
+                    CacheControl.maxAge(openedMaxAge).cachePublic().getHeaderValue());
+            response.setDateHeader(HttpHeaders.EXPIRES, System.currentTimeMillis() + openedMaxAge.toMillis());
+            if (new ServletWebRequest(request, response).checkNotModified(entry.getETag())) {
+                return;
+            }
+        }
+        byte[] body = entry.getBody();
+        if (entry.getGzipBody() != null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                body = entry.getGzipBody();
+            }
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+    
+    /**
+     * 强 ETag 由胶囊码、开启状态和修订号组成：未开启时只有由 openTime 推算的 timeRemaining 会变化，
+     * 开启后内容不再变化，删除时修订号递增
+     */
+    private static String capsuleETag(CapsuleResponse response) {
+        return "\"" + response.getCapsuleCode() + "-" + (response.getCanOpen() ? "open" : "locked")
+                + "-" + response.getRevision() + "\"";
+    }
+    
+    /**
+     * 已开启的胶囊可以长期缓存；未开启的胶囊最多缓存到开启时刻，避免开启后仍返回缓存的未开启结果
+     */
+    private long cacheMaxAgeSeconds(CapsuleResponse response) {
+        if (response.getCanOpen()) {
+            return openedMaxAge.getSeconds();
+        }
+        long untilOpen = Duration.between(LocalDateTime.now(), response.getOpenTime()).getSeconds();
+        return Math.max(0, Math.min(lockedMaxAge.getSeconds(), untilOpen));
+    }
+    
+    /**
+     * 订阅胶囊开启推送
+     */
+    @Operation(summary = "订阅胶囊开启", description = "通过 SSE 定期推送倒计时（tick），开启时推送一次胶囊内容（opened）后结束连接")
+    @GetMapping(value = "/{capsuleCode}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeCapsule(
+            @Parameter(description = "8位胶囊码", example = "A3X9K2M7")
+            @PathVariable String capsuleCode) {
+        log.info("收到订阅胶囊请求: code={}", capsuleCode);
+        
+        if (!capsuleService.isValidCapsuleCode(capsuleCode)) {
+            throw new BusinessException(ErrorCode.INVALID_CAPSULE_CODE, "无效的胶囊码");
+        }
         
-        String message = response.getCanOpen() ? "胶囊已开启" : "胶囊尚未到开启时间";
-        return ResponseEntity.ok(ApiResponse.success(message, response));
+        return capsuleEventHub.subscribe(capsuleCode);
     }
 }
@@ -3,10 +3,12 @@ package com.timecapsule.controller;
 import com.timecapsule.dto.AboutResponse;
 import com.timecapsule.dto.ApiResponse;
 import com.timecapsule.dto.HealthResponse;
+import com.timecapsule.service.HealthProbeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -17,6 +19,8 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "系统信息", description = "系统信息和健康检查接口")
 public class SystemController {
     
+    private final HealthProbeService healthProbeService;
+    
     /**
      * 获取应用信息
      */
@@ -30,12 +34,22 @@ public class SystemController {
     
     /**
      * 健康检查
+     * 
+     * 返回缓存的数据库与磁盘探测结果，任一项异常时状态为 DOWN 并返回 503
      */
-    @Operation(summary = "健康检查", description = "检查服务是否正常运行")
+    @Operation(summary = "健康检查", description = "检查数据库连接与磁盘空间，结果缓存数秒")
     @GetMapping("/health")
     public ResponseEntity<ApiResponse<HealthResponse>> getHealth() {
-        log.info("健康检查");
+        log.debug("健康检查");
+        HealthProbeService.Snapshot snapshot = healthProbeService.current();
         HealthResponse response = new HealthResponse();
-        return ResponseEntity.ok(ApiResponse.success(response));
+        response.setStatus(snapshot.isUp() ? "UP" : "DOWN");
+        response.setDatabase(snapshot.isDatabaseUp() ? "UP" : "DOWN");
+        response.setDatabaseLatencyMs(snapshot.getDatabaseLatencyMs());
+        response.setDiskSpace(snapshot.isDiskUp() ? "UP" : "DOWN");
+        response.setDiskFreeBytes(snapshot.getDiskFreeBytes());
+        response.setCheckedAt(snapshot.getCheckedAt());
+        HttpStatus status = snapshot.isUp() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status).body(ApiResponse.success(response));
     }
 }
@@ -0,0 +1,17 @@
+package com.timecapsule.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ArchiveStatsResponse {
+
+    private boolean enabled;
+    private String mode;
+    private long archivedRows;
+    private long purgedRows;
+    private long reclaimedBytes;
+    private long throttledRuns;
+    private LocalDateTime lastRunAt;
+}
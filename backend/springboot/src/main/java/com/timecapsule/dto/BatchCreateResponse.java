@@ -0,0 +1,51 @@
+package com.timecapsule.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchCreateResponse {
+    
+    private int total;
+    private int succeeded;
+    private int failed;
+    
+    /**
+     * 与请求数组一一对应的处理结果
+     */
+    private List<ItemResult> results;
+    
+    public BatchCreateResponse(List<ItemResult> results) {
+        this.results = results;
+        this.total = results.size();
+        this.succeeded = (int) results.stream().filter(ItemResult::isSuccess).count();
+        this.failed = total - succeeded;
+    }
+    
+    @Data
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ItemResult {
+        private int index;
+        private boolean success;
+        private CapsuleResponse data;
+        private ApiResponse.ErrorInfo error;
+        
+        public static ItemResult success(int index, CapsuleResponse data) {
+            ItemResult result = new ItemResult();
+            result.setIndex(index);
+            result.setSuccess(true);
+            result.setData(data);
+            return result;
+        }
+        
+        public static ItemResult error(int index, String code, String message) {
+            ItemResult result = new ItemResult();
+            result.setIndex(index);
+            result.setSuccess(false);
+            result.setError(new ApiResponse.ErrorInfo(code, message));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.timecapsule.dto;
+
+import lombok.Data;
+
+@Data
+public class BloomFilterStatsResponse {
+
+    private boolean enabled;
+    private boolean ready;
+    private long bitSize;
+    private long memoryBytes;
+    private int hashFunctions;
+    private long insertions;
+    private double configuredFpp;
+    private double expectedFpp;
+    private long rejectedLookups;
+    private long passedLookups;
+    /**
+     * 过滤器放行但未找到胶囊的次数，包括误判和已软删除、已归档的胶囊码
+     */
+    private long passedMisses;
+}
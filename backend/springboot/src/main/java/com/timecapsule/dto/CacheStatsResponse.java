@@ -0,0 +1,14 @@
+package com.timecapsule.dto;
+
+import lombok.Data;
+
+@Data
+public class CacheStatsResponse {
+
+    private boolean enabled;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private double hitRatio;
+    private long evictionCount;
+}
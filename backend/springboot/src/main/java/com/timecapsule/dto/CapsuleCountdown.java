@@ -0,0 +1,22 @@
+package com.timecapsule.dto;
+
+import lombok.Data;
+
+/**
+ * 胶囊开启倒计时，通过 SSE 定期推送
+ */
+@Data
+public class CapsuleCountdown {
+    
+    private String capsuleCode;
+    private long secondsRemaining;
+    private CapsuleResponse.TimeRemaining timeRemaining;
+    private int subscribers;
+    
+    public CapsuleCountdown(String capsuleCode, long secondsRemaining, int subscribers) {
+        this.capsuleCode = capsuleCode;
+        this.secondsRemaining = secondsRemaining;
+        this.timeRemaining = new CapsuleResponse.TimeRemaining(secondsRemaining);
+        this.subscribers = subscribers;
+    }
+}
@@ -1,6 +1,7 @@
 package com.timecapsule.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
@@ -24,6 +25,12 @@ public class CapsuleResponse {
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'", timezone = "UTC")
     private LocalDateTime createdAt;
     
+    /**
+     * 胶囊修订号，只用于生成 ETag，不返回给客户端
+     */
+    @JsonIgnore
+    private int revision;
+    
     @Data
     public static class TimeRemaining {
         private long days;
@@ -38,6 +45,14 @@ public class CapsuleResponse {
     }
     
     public static CapsuleResponse fromEntity(com.timecapsule.model.Capsule capsule, boolean includeContent) {
+        return fromEntity(capsule, includeContent, LocalDateTime.now());
+    }
+    
+    /**
+     * 按 now 判断是否可开启；从按开启时间决定是否读取 content 的查询构建时，now 必须与查询参数相同
+     */
+    public static CapsuleResponse fromEntity(com.timecapsule.model.Capsule capsule, boolean includeContent,
+                                             LocalDateTime now) {
         CapsuleResponse response = new CapsuleResponse();
         response.setId(capsule.getId());
         response.setCapsuleCode(capsule.getCapsuleCode());
@@ -45,8 +60,9 @@ public class CapsuleResponse {
         response.setCreatorNickname(capsule.getCreatorNickname());
         response.setOpenTime(capsule.getOpenTime());
         response.setCreatedAt(capsule.getCreateTime());
+        response.setRevision(capsule.getRevision() == null ? 0 : capsule.getRevision());
         
-        boolean canOpen = capsule.canOpen();
+        boolean canOpen = capsule.canOpen(now);
         response.setCanOpen(canOpen);
         
         // 只有可开启时才返回内容
@@ -57,7 +73,7 @@ public class CapsuleResponse {
         // 未开启时计算剩余时间
         if (!canOpen) {
             long remainingSeconds = java.time.Duration.between(
-                LocalDateTime.now(), 
+                now, 
                 capsule.getOpenTime()
             ).getSeconds();
             if (remainingSeconds > 0) {
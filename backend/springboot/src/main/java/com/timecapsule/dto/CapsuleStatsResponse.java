@@ -0,0 +1,22 @@
+package com.timecapsule.dto;
+
+import com.timecapsule.util.TimeBucketCounter;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class CapsuleStatsResponse {
+
+    private boolean ready;
+    private long live;
+    private long locked;
+    private long opened;
+    private long deleted;
+    private long archived;
+    private List<TimeBucketCounter.Bucket> hourlyCreations;
+    private List<TimeBucketCounter.Bucket> dailyCreations;
+    private LocalDateTime reconciledAt;
+    private long lastCorrection;
+}
@@ -0,0 +1,28 @@
+package com.timecapsule.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPageResponse<T> {
+    
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+    private int pageSize;
+    
+    /**
+     * 近似总数，仅在请求时返回，来自定期刷新的计数缓存
+     */
+    private Long approximateTotal;
+    
+    public CursorPageResponse(List<T> items, String nextCursor, boolean hasMore, int pageSize) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+        this.pageSize = pageSize;
+    }
+}
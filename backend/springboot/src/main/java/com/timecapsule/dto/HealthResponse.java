@@ -16,6 +16,22 @@ public class HealthResponse {
     private String database = "UP";
     private String diskSpace = "UP";
     
+    /**
+     * 数据库探测往返耗时（毫秒）
+     */
+    private long databaseLatencyMs;
+    
+    /**
+     * 磁盘可用空间（字节）
+     */
+    private long diskFreeBytes;
+    
+    /**
+     * 探测时间；探测结果有缓存，可能早于 timestamp
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'", timezone = "UTC")
+    private LocalDateTime checkedAt;
+    
     public HealthResponse() {
         this.timestamp = LocalDateTime.now();
     }
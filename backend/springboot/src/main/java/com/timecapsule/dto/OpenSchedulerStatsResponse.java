@@ -0,0 +1,17 @@
+package com.timecapsule.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class OpenSchedulerStatsResponse {
+
+    private boolean enabled;
+    private boolean ready;
+    private int pending;
+    private int wheelSize;
+    private long firedCount;
+    private LocalDateTime loadedUntil;
+    private LocalDateTime firedUntil;
+}
@@ -0,0 +1,14 @@
+package com.timecapsule.dto;
+
+import lombok.Data;
+
+@Data
+public class SearchIndexStatsResponse {
+
+    private boolean enabled;
+    private boolean ready;
+    private int documents;
+    private int deletedDocuments;
+    private int terms;
+    private long memoryBytes;
+}
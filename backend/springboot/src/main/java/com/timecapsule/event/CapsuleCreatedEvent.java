@@ -0,0 +1,18 @@
+package com.timecapsule.event;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * 胶囊创建事件，在创建事务中发布
+ */
+@Value
+public class CapsuleCreatedEvent {
+    
+    long capsuleId;
+    String capsuleCode;
+    LocalDateTime openTime;
+    String title;
+    String creatorNickname;
+}
@@ -0,0 +1,15 @@
+package com.timecapsule.event;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * 胶囊删除事件，在删除事务中发布
+ */
+@Value
+public class CapsuleDeletedEvent {
+    
+    String capsuleCode;
+    LocalDateTime openTime;
+}
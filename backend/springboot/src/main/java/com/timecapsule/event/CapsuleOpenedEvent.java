@@ -0,0 +1,16 @@
+package com.timecapsule.event;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * 胶囊到达开启时间事件，由开启调度器在开启时刻发布（至少一次，重启后可能重复）
+ */
+@Value
+public class CapsuleOpenedEvent {
+    
+    long capsuleId;
+    String capsuleCode;
+    LocalDateTime openTime;
+}
@@ -13,6 +13,9 @@ public enum ErrorCode {
     UNAUTHORIZED("UNAUTHORIZED", "未授权访问", HttpStatus.UNAUTHORIZED),
     INVALID_PASSWORD("INVALID_PASSWORD", "密码错误", HttpStatus.UNAUTHORIZED),
     VALIDATION_ERROR("VALIDATION_ERROR", "数据验证失败", HttpStatus.BAD_REQUEST),
+    INVALID_CURSOR("INVALID_CURSOR", "无效的分页游标", HttpStatus.BAD_REQUEST),
+    TOO_MANY_REQUESTS("TOO_MANY_REQUESTS", "请求过于频繁", HttpStatus.TOO_MANY_REQUESTS),
+    SERVICE_UNAVAILABLE("SERVICE_UNAVAILABLE", "服务繁忙，请稍后重试", HttpStatus.SERVICE_UNAVAILABLE),
     INTERNAL_ERROR("INTERNAL_ERROR", "服务器内部错误", HttpStatus.INTERNAL_SERVER_ERROR);
     
     private final String code;
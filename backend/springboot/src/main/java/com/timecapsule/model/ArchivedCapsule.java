@@ -0,0 +1,60 @@
+package com.timecapsule.model;
+
+import com.timecapsule.util.CompressedContentConverter;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已归档的胶囊
+ *
+ * 软删除的胶囊由归档任务从 capsules 表移到 capsules_archive 表，列与 capsules 相同（去掉 is_deleted），
+ * 另加归档时间。归档表只用于留存和检查胶囊码是否被占用，业务查询不读取。
+ */
+@Entity
+@Table(name = "capsules_archive", indexes = {
+    @Index(name = "idx_capsules_archive_code", columnList = "capsule_code")
+})
+@Data
+@NoArgsConstructor
+public class ArchivedCapsule {
+    
+    /**
+     * 沿用胶囊原来的 id
+     */
+    @Id
+    private Long id;
+    
+    @Column(name = "capsule_code", nullable = false, length = 8)
+    private String capsuleCode;
+    
+    @Column(nullable = false, length = 100)
+    private String title;
+    
+    @Convert(converter = CompressedContentConverter.class)
+    @Column(name = "content_data", length = Capsule.MAX_CONTENT_DATA_LENGTH)
+    private String content;
+    
+    @Column(name = "content", nullable = false, columnDefinition = "TEXT")
+    private String legacyContent = "";
+    
+    @Column(name = "open_time", nullable = false)
+    private LocalDateTime openTime;
+    
+    @Column(name = "creator_nickname", length = 50)
+    private String creatorNickname;
+    
+    @Column(name = "create_time")
+    private LocalDateTime createTime;
+    
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+    
+    @Column(name = "revision")
+    private Integer revision;
+    
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
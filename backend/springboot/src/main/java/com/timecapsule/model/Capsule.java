@@ -1,22 +1,41 @@
 package com.timecapsule.model;
 
+import com.timecapsule.util.CompressedContentConverter;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
-import org.hibernate.annotations.CreationTimestamp;
+import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "capsules")
+@Table(name = "capsules", indexes = {
+    // 键集分页: WHERE is_deleted = false AND (create_time, id) < (?, ?) ORDER BY create_time, id
+    @Index(name = "idx_capsules_deleted_create_time_id", columnList = "is_deleted, create_time, id"),
+    // 开启调度器按 (open_time, id) 分段加载
+    @Index(name = "idx_capsules_open_time_id", columnList = "open_time, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+// 只更新变化的列：软删除不再重写内容，迁移内容时也不会覆盖并发的删除
+@DynamicUpdate
 public class Capsule {
     
+    /**
+     * 10000 个字符按 UTF-8 最多 30000 字节，加 1 字节格式头
+     */
+    public static final int MAX_CONTENT_DATA_LENGTH = 30001;
+    
+    /**
+     * 应用侧生成的时间有序 id；自增主键会让 Hibernate 关闭插入批处理
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeSortedId
     private Long id;
     
     @Column(name = "capsule_code", unique = true, nullable = false, length = 8)
@@ -25,27 +44,95 @@ public class Capsule {
     @Column(nullable = false, length = 100)
     private String title;
     
-    @Column(nullable = false, columnDefinition = "TEXT")
+    /**
+     * 胶囊内容，以压缩格式存储在 content_data 列；未迁移的旧数据为 null，内容仍在 content 列
+     */
+    @Convert(converter = CompressedContentConverter.class)
+    @Column(name = "content_data", length = MAX_CONTENT_DATA_LENGTH)
     private String content;
     
+    /**
+     * 旧版未压缩的内容列，迁移后置为空串（已有数据库中该列为 NOT NULL）
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Column(name = "content", nullable = false, columnDefinition = "TEXT")
+    private String legacyContent = "";
+    
     @Column(name = "open_time", nullable = false)
     private LocalDateTime openTime;
     
     @Column(name = "creator_nickname", length = 50)
     private String creatorNickname;
     
-    @CreationTimestamp
+    /**
+     * 创建时间，插入前为空时取当前时间；写后缓冲中的胶囊在写入日志时已确定，入库时保留
+     */
     @Column(name = "create_time")
     private LocalDateTime createTime;
     
     @Column(name = "is_deleted", nullable = false)
     private Boolean isDeleted = false;
     
+    /**
+     * 软删除时间；加入该列之前删除的胶囊为 null
+     */
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+    
+    /**
+     * 修订号，胶囊被修改（包括删除）时递增，用于生成 ETag；旧数据中为 null，按 0 处理
+     */
+    @Column(name = "revision")
+    private Integer revision = 0;
+    
+    @PrePersist
+    void initCreateTime() {
+        if (createTime == null) {
+            createTime = LocalDateTime.now();
+        }
+    }
+    
+    public String getContent() {
+        return hasLegacyContent() ? legacyContent : content;
+    }
+    
+    /**
+     * 是否还有未迁移到压缩列的旧版内容
+     */
+    public boolean hasLegacyContent() {
+        return content == null && legacyContent != null && !legacyContent.isEmpty();
+    }
+    
+    /**
+     * 把旧版内容迁移到压缩列
+     */
+    public void migrateLegacyContent() {
+        if (content == null) {
+            content = legacyContent;
+        }
+        legacyContent = "";
+    }
+    
+    /**
+     * 递增修订号，使之前返回的 ETag 失效
+     */
+    public void bumpRevision() {
+        revision = revision == null ? 1 : revision + 1;
+    }
+    
     /**
      * 检查胶囊是否已到开启时间
      */
     public boolean canOpen() {
-        return !LocalDateTime.now().isBefore(this.openTime);
+        return canOpen(LocalDateTime.now());
+    }
+    
+    /**
+     * 检查胶囊在 now 时是否已到开启时间
+     */
+    public boolean canOpen(LocalDateTime now) {
+        return !now.isBefore(this.openTime);
     }
     
     // 向后兼容
@@ -0,0 +1,24 @@
+package com.timecapsule.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 序号分配表，各实例按块预留序号，避免每次分配都访问数据库
+ */
+@Entity
+@Table(name = "code_sequences")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CodeSequence {
+    
+    @Id
+    @Column(length = 50)
+    private String name;
+    
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
@@ -0,0 +1,29 @@
+package com.timecapsule.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 调度器进度检查点，重启后从该位置恢复
+ */
+@Entity
+@Table(name = "scheduler_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchedulerCheckpoint {
+    
+    @Id
+    @Column(length = 50)
+    private String name;
+    
+    /**
+     * 时间早于该值的事件都已触发
+     */
+    @Column(name = "fired_until", nullable = false)
+    private LocalDateTime firedUntil;
+}
@@ -0,0 +1,20 @@
+package com.timecapsule.model;
+
+import com.timecapsule.util.TimeSortedIdGenerator;
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 使用按时间递增的 53 位 id 作为主键
+ *
+ * id 在插入前由应用生成，不依赖数据库自增列，Hibernate 可以对插入语句做 JDBC 批处理。
+ */
+@IdGeneratorType(TimeSortedIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface TimeSortedId {
+}
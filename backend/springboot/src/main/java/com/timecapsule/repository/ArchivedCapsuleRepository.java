@@ -0,0 +1,57 @@
+package com.timecapsule.repository;
+
+import com.timecapsule.model.ArchivedCapsule;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+@Repository
+public interface ArchivedCapsuleRepository extends JpaRepository<ArchivedCapsule, Long> {
+    
+    /**
+     * 把指定的胶囊原样复制到归档表（INSERT ... SELECT，不经过应用内存）
+     */
+    @Modifying
+    @Query("INSERT INTO ArchivedCapsule (id, capsuleCode, title, content, legacyContent, openTime, " +
+           "creatorNickname, createTime, deletedAt, revision, archivedAt) " +
+           "SELECT c.id, c.capsuleCode, c.title, c.content, c.legacyContent, c.openTime, " +
+           "c.creatorNickname, c.createTime, c.deletedAt, c.revision, CAST(:archivedAt AS LocalDateTime) " +
+           "FROM Capsule c WHERE c.id IN :ids")
+    int copyFromCapsules(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+    
+    /**
+     * 流式读取 since 之后创建的已归档胶囊的创建时间，需在事务中使用并关闭流
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT a.createTime FROM ArchivedCapsule a WHERE a.createTime >= :since")
+    Stream<LocalDateTime> streamCreateTimesSince(@Param("since") LocalDateTime since);
+    
+    /**
+     * 检查胶囊码是否已被归档的胶囊占用
+     */
+    boolean existsByCapsuleCode(String capsuleCode);
+    
+    /**
+     * 在给定的胶囊码中查找已归档的，用于批量检查唯一性
+     */
+    @Query("SELECT a.capsuleCode FROM ArchivedCapsule a WHERE a.capsuleCode IN :codes")
+    List<String> findExistingCapsuleCodes(@Param("codes") Collection<String> codes);
+    
+    /**
+     * 流式读取所有已归档的胶囊码，需在事务中使用并关闭流
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT a.capsuleCode FROM ArchivedCapsule a")
+    Stream<String> streamAllCapsuleCodes();
+}
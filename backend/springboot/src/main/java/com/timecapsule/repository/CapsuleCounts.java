@@ -0,0 +1,13 @@
+package com.timecapsule.repository;
+
+/**
+ * 胶囊表按状态的聚合计数，用于统计的初始化和对账
+ */
+public interface CapsuleCounts {
+    
+    Long getLocked();
+    
+    Long getOpened();
+    
+    Long getDeleted();
+}
@@ -0,0 +1,15 @@
+package com.timecapsule.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 只包含调度所需字段的胶囊投影，不加载标题和内容
+ */
+public interface CapsuleOpenTime {
+    
+    Long getId();
+    
+    String getCapsuleCode();
+    
+    LocalDateTime getOpenTime();
+}
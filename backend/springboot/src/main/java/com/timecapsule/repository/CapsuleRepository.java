@@ -1,19 +1,35 @@
 package com.timecapsule.repository;
 
 import com.timecapsule.model.Capsule;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface CapsuleRepository extends JpaRepository<Capsule, Long> {
     
+    /**
+     * 胶囊展示投影的查询前缀：未到开启时间（:now 之前）的胶囊不读取 content 列
+     */
+    String VIEW_SELECT = "SELECT new com.timecapsule.repository.CapsuleView(c.id, c.capsuleCode, c.title, " +
+            "c.creatorNickname, c.openTime, c.createTime, " +
+            "CASE WHEN c.openTime <= :now THEN c.content ELSE NULL END, " +
+            "CASE WHEN c.openTime <= :now THEN c.legacyContent ELSE NULL END, c.revision) FROM Capsule c ";
+    
     /**
      * 根据胶囊码查找胶囊（排除已删除的）
      */
@@ -21,10 +37,53 @@ public interface CapsuleRepository extends JpaRepository<Capsule, Long> {
     Optional<Capsule> findByCapsuleCodeAndNotDeleted(String capsuleCode);
     
     /**
-     * 查找所有未删除的胶囊（分页）
+     * 根据胶囊码查找用于展示的胶囊（排除已删除的），只有已开启的胶囊才读取内容
+     */
+    @Query(VIEW_SELECT + "WHERE c.capsuleCode = :code AND c.isDeleted = false")
+    Optional<CapsuleView> findViewByCapsuleCode(@Param("code") String capsuleCode, @Param("now") LocalDateTime now);
+    
+    /**
+     * 查找所有未删除的胶囊（分页），只有已开启的胶囊才读取内容
+     */
+    @Query(value = VIEW_SELECT + "WHERE c.isDeleted = false",
+           countQuery = "SELECT COUNT(c) FROM Capsule c WHERE c.isDeleted = false")
+    Page<CapsuleView> findAllNotDeleted(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    /**
+     * 键集分页：按创建时间倒序的第一页
+     */
+    @Query(VIEW_SELECT + "WHERE c.isDeleted = false ORDER BY c.createTime DESC, c.id DESC")
+    List<CapsuleView> findFirstPageDesc(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    /**
+     * 键集分页：按创建时间倒序，从游标 (createTime, id) 之后开始
      */
-    @Query("SELECT c FROM Capsule c WHERE c.isDeleted = false")
-    Page<Capsule> findAllNotDeleted(Pageable pageable);
+    @Query(VIEW_SELECT + "WHERE c.isDeleted = false " +
+           "AND (c.createTime < :createTime OR (c.createTime = :createTime AND c.id < :id)) " +
+           "ORDER BY c.createTime DESC, c.id DESC")
+    List<CapsuleView> findPageBefore(@Param("createTime") LocalDateTime createTime, @Param("id") Long id,
+                                     @Param("now") LocalDateTime now, Pageable pageable);
+    
+    /**
+     * 键集分页：按创建时间正序的第一页
+     */
+    @Query(VIEW_SELECT + "WHERE c.isDeleted = false ORDER BY c.createTime ASC, c.id ASC")
+    List<CapsuleView> findFirstPageAsc(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    /**
+     * 键集分页：按创建时间正序，从游标 (createTime, id) 之后开始
+     */
+    @Query(VIEW_SELECT + "WHERE c.isDeleted = false " +
+           "AND (c.createTime > :createTime OR (c.createTime = :createTime AND c.id > :id)) " +
+           "ORDER BY c.createTime ASC, c.id ASC")
+    List<CapsuleView> findPageAfter(@Param("createTime") LocalDateTime createTime, @Param("id") Long id,
+                                    @Param("now") LocalDateTime now, Pageable pageable);
+    
+    /**
+     * 统计未删除的胶囊数量
+     */
+    @Query("SELECT COUNT(c) FROM Capsule c WHERE c.isDeleted = false")
+    long countNotDeleted();
     
     /**
      * 查找所有未删除的胶囊（不分页）
@@ -32,14 +91,98 @@ public interface CapsuleRepository extends JpaRepository<Capsule, Long> {
     @Query("SELECT c FROM Capsule c WHERE c.isDeleted = false ORDER BY c.createTime DESC")
     List<Capsule> findAllNotDeleted();
     
+    /**
+     * 流式读取所有未删除的胶囊（按 id 顺序），需在事务中使用并关闭流
+     */
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Capsule c WHERE c.isDeleted = false ORDER BY c.id")
+    Stream<Capsule> streamAllNotDeleted();
+    
+    /**
+     * 按 id 顺序流式读取所有未删除胶囊的搜索字段，需在事务中使用并关闭流
+     */
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c.capsuleCode AS capsuleCode, c.title AS title, c.creatorNickname AS creatorNickname " +
+           "FROM Capsule c WHERE c.isDeleted = false ORDER BY c.id")
+    Stream<CapsuleSearchText> streamAllSearchTexts();
+    
     /**
      * 查找已到期可开启的胶囊（排除已删除的）
      */
     @Query("SELECT c FROM Capsule c WHERE c.openTime <= ?1 AND c.isDeleted = false")
     List<Capsule> findOpenableCapsules(LocalDateTime currentTime);
     
+    /**
+     * 按 (openTime, id) 顺序读取某位置之后、until 之前开启的胶囊，用于开启调度器分段加载
+     */
+    @Query("SELECT c.id AS id, c.capsuleCode AS capsuleCode, c.openTime AS openTime FROM Capsule c " +
+           "WHERE c.isDeleted = false AND c.openTime < :until " +
+           "AND (c.openTime > :openTime OR (c.openTime = :openTime AND c.id > :id)) " +
+           "ORDER BY c.openTime, c.id")
+    List<CapsuleOpenTime> findOpenTimesAfter(@Param("openTime") LocalDateTime openTime,
+                                             @Param("id") long id,
+                                             @Param("until") LocalDateTime until,
+                                             Pageable pageable);
+    
+    /**
+     * 读取一批尚未迁移到压缩列的胶囊（包括已删除的）
+     */
+    @Query("SELECT c FROM Capsule c WHERE c.content IS NULL ORDER BY c.id")
+    List<Capsule> findLegacyContentBatch(Pageable pageable);
+    
+    /**
+     * 未删除胶囊中未开启、已开启的数量和已删除（未归档）的数量，一次扫描完成
+     */
+    @Query("SELECT COALESCE(SUM(CASE WHEN c.isDeleted = false AND c.openTime > :now THEN 1 ELSE 0 END), 0) AS locked, " +
+           "COALESCE(SUM(CASE WHEN c.isDeleted = false AND c.openTime <= :now THEN 1 ELSE 0 END), 0) AS opened, " +
+           "COALESCE(SUM(CASE WHEN c.isDeleted = true THEN 1 ELSE 0 END), 0) AS deleted FROM Capsule c")
+    CapsuleCounts countByState(@Param("now") LocalDateTime now);
+    
+    /**
+     * 流式读取 since 之后创建的胶囊（包括已删除的）的创建时间，需在事务中使用并关闭流
+     * 
+     * 在应用中分桶，而不是用 HOUR() 等日期函数分组：SQLite 中时间以毫秒数存储，日期函数无法处理
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c.createTime FROM Capsule c WHERE c.createTime >= :since")
+    Stream<LocalDateTime> streamCreateTimesSince(@Param("since") LocalDateTime since);
+    
+    /**
+     * 按 id 顺序读取一批可归档的胶囊 id：已删除且删除时间早于 cutoff（旧数据没有删除时间，直接归档）
+     */
+    @Query("SELECT c.id FROM Capsule c WHERE c.isDeleted = true " +
+           "AND (c.deletedAt IS NULL OR c.deletedAt < :cutoff) ORDER BY c.id")
+    List<Long> findArchivableIds(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+    
+    /**
+     * 指定胶囊各变长列的数据字节数之和，用于估算归档或清理释放的空间
+     */
+    @Query(value = "SELECT COALESCE(SUM(OCTET_LENGTH(capsule_code) + OCTET_LENGTH(title) + OCTET_LENGTH(content) " +
+                   "+ COALESCE(OCTET_LENGTH(content_data), 0) + COALESCE(OCTET_LENGTH(creator_nickname), 0)), 0) " +
+                   "FROM capsules WHERE id IN (:ids)", nativeQuery = true)
+    long sumVariableColumnBytes(@Param("ids") Collection<Long> ids);
+    
     /**
      * 检查胶囊码是否存在
      */
     boolean existsByCapsuleCode(String capsuleCode);
+    
+    /**
+     * 在给定的胶囊码中查找已存在的（包括已删除的），用于批量检查唯一性
+     */
+    @Query("SELECT c.capsuleCode FROM Capsule c WHERE c.capsuleCode IN :codes")
+    List<String> findExistingCapsuleCodes(@Param("codes") Collection<String> codes);
+    
+    /**
+     * 流式读取所有胶囊码（包括已删除的），需在事务中使用并关闭流
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c.capsuleCode FROM Capsule c")
+    Stream<String> streamAllCapsuleCodes();
 }
@@ -0,0 +1,13 @@
+package com.timecapsule.repository;
+
+/**
+ * 只包含搜索字段的胶囊投影，用于构建搜索索引
+ */
+public interface CapsuleSearchText {
+    
+    String getCapsuleCode();
+    
+    String getTitle();
+    
+    String getCreatorNickname();
+}
@@ -0,0 +1,56 @@
+package com.timecapsule.repository;
+
+import com.timecapsule.model.Capsule;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用于展示的胶囊投影：元数据总是读取，content 列只在查询时已到开启时间才读取，否则为 null
+ */
+@Value
+public class CapsuleView {
+    
+    Long id;
+    String capsuleCode;
+    String title;
+    String creatorNickname;
+    LocalDateTime openTime;
+    LocalDateTime createTime;
+    String content;
+    Integer revision;
+    
+    /**
+     * @param content       压缩列中的内容，未开启时为 null
+     * @param legacyContent 尚未迁移的旧版内容列，未开启或已迁移时为 null 或空串
+     */
+    public CapsuleView(Long id, String capsuleCode, String title, String creatorNickname,
+                       LocalDateTime openTime, LocalDateTime createTime, String content, String legacyContent,
+                       Integer revision) {
+        this.id = id;
+        this.capsuleCode = capsuleCode;
+        this.title = title;
+        this.creatorNickname = creatorNickname;
+        this.openTime = openTime;
+        this.createTime = createTime;
+        this.content = content != null || legacyContent == null || legacyContent.isEmpty() ? content : legacyContent;
+        this.revision = revision;
+    }
+    
+    /**
+     * 转换为不受持久化上下文管理的胶囊实体，不能用于更新
+     */
+    public Capsule toCapsule() {
+        Capsule capsule = new Capsule();
+        capsule.setId(id);
+        capsule.setCapsuleCode(capsuleCode);
+        capsule.setTitle(title);
+        capsule.setCreatorNickname(creatorNickname);
+        capsule.setOpenTime(openTime);
+        capsule.setCreateTime(createTime);
+        capsule.setContent(content);
+        capsule.setIsDeleted(false);
+        capsule.setRevision(revision);
+        return capsule;
+    }
+}
@@ -0,0 +1,18 @@
+package com.timecapsule.repository;
+
+import com.timecapsule.model.CodeSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CodeSequenceRepository extends JpaRepository<CodeSequence, String> {
+    
+    /**
+     * 原子地推进序号，返回受影响的行数
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE CodeSequence s SET s.nextValue = s.nextValue + ?2 WHERE s.name = ?1")
+    int advance(String name, long amount);
+}
@@ -0,0 +1,9 @@
+package com.timecapsule.repository;
+
+import com.timecapsule.model.SchedulerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SchedulerCheckpointRepository extends JpaRepository<SchedulerCheckpoint, String> {
+}
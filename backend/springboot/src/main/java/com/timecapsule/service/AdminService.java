@@ -1,25 +1,42 @@
 package com.timecapsule.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.timecapsule.dto.AdminLoginRequest;
 import com.timecapsule.dto.JwtResponse;
 import com.timecapsule.exception.BusinessException;
 import com.timecapsule.exception.ErrorCode;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AdminService {
     
+    private final MeterRegistry meterRegistry;
+    
     @Value("${admin.password}")
     private String adminPassword;
     
@@ -29,6 +46,42 @@ public class AdminService {
     @Value("${jwt.expiration}")
     private Long jwtExpiration;
     
+    @Value("${jwt.verified-cache-size:1000}")
+    private long verifiedCacheSize = 1000;
+    
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+    
+    /**
+     * token 验证耗时，按结果区分：命中已验证缓存、验签通过、验证失败
+     */
+    private Timer cachedTimer;
+    private Timer verifiedTimer;
+    private Timer rejectedTimer;
+    
+    /**
+     * 已验证 token 的缓存，键为 token 的 SHA-256 摘要，值为过期时间（毫秒），到期自动移除
+     */
+    private Cache<String, Long> verifiedTokens;
+    
+    /**
+     * 预先构建签名密钥和解析器，避免每次验证时重复创建
+     */
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new TokenExpiry())
+                .build();
+        cachedTimer = validationTimer("cached");
+        verifiedTimer = validationTimer("verified");
+        rejectedTimer = validationTimer("rejected");
+    }
+    
     /**
      * 管理员登录
      */
@@ -47,33 +100,87 @@ public class AdminService {
     
     /**
      * 验证JWT token
+     * 
+     * 已验证过且未过期的 token 直接命中缓存，跳过 HMAC-SHA512 签名校验
      */
     public boolean validateToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return false;
+        }
+        
+        long start = System.nanoTime();
+        String tokenHash = hash(token);
+        Long expiresAt = verifiedTokens.getIfPresent(tokenHash);
+        if (expiresAt != null && expiresAt > System.currentTimeMillis()) {
+            cachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return true;
+        }
+        
         try {
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-            Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token);
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            Date expiration = claims.getExpiration();
+            if (expiration != null) {
+                verifiedTokens.put(tokenHash, expiration.getTime());
+            }
+            verifiedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             return true;
-        } catch (Exception e) {
-            log.warn("Token验证失败: {}", e.getMessage());
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Token验证失败: {}", e.getMessage());
+            rejectedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             return false;
         }
     }
     
+    private Timer validationTimer(String result) {
+        return Timer.builder("admin.token.validation")
+                .description("管理员 token 验证耗时")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+    
     /**
      * 生成JWT token
      */
     private String generateToken() {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
         Date expiryDate = new Date(System.currentTimeMillis() + jwtExpiration);
         
         return Jwts.builder()
                 .setSubject("admin")
                 .setIssuedAt(new Date())
                 .setExpiration(expiryDate)
-                .signWith(key, SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
+    
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * 缓存项在 token 的过期时间失效
+     */
+    private static class TokenExpiry implements Expiry<String, Long> {
+        
+        @Override
+        public long expireAfterCreate(@NonNull String key, @NonNull Long expiresAt, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiresAt - System.currentTimeMillis()));
+        }
+        
+        @Override
+        public long expireAfterUpdate(@NonNull String key, @NonNull Long expiresAt,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(key, expiresAt, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(@NonNull String key, @NonNull Long expiresAt,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
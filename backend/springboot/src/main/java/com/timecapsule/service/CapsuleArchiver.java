@@ -0,0 +1,167 @@
+package com.timecapsule.service;
+
+import com.timecapsule.dto.ArchiveStatsResponse;
+import com.timecapsule.repository.ArchivedCapsuleRepository;
+import com.timecapsule.repository.CapsuleRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 软删除胶囊的归档与清理
+ *
+ * 删除时间早于保留期的胶囊按 id 顺序分批处理：archive 模式复制到 capsules_archive 表后从 capsules 表删除，
+ * purge 模式直接删除（胶囊码随之可以重新分配）。每次调度只处理一批，复制和删除在同一个写事务中完成。
+ *
+ * 为了不和前台请求争抢连接和写锁：有线程在等待数据库连接或写队列有积压时跳过本次调度；
+ * 每批执行完后按 max-duty-cycle 推迟下一批，使归档占用数据库的时间比例不超过该值；
+ * 没有可处理的胶囊时改为每 idle-interval 检查一次。
+ */
+@Component
+@Slf4j
+public class CapsuleArchiver {
+
+    /**
+     * 每行定长列（id、时间列、删除标记、版本号）的字节数，用于估算释放的空间
+     */
+    private static final long FIXED_ROW_BYTES = 37;
+
+    private final CapsuleRepository capsuleRepository;
+    private final ArchivedCapsuleRepository archivedCapsuleRepository;
+    private final WriteQueue writeQueue;
+    private final CapsuleStatsService capsuleStats;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final boolean purge;
+    private final Duration retention;
+    private final int batchSize;
+    private final double maxDutyCycle;
+    private final Duration idleInterval;
+    private final Counter archivedRows;
+    private final Counter purgedRows;
+    private final Counter reclaimedBytes;
+    private final Counter throttledRuns;
+
+    private volatile long nextRunAt;
+    private volatile LocalDateTime lastRunAt;
+
+    public CapsuleArchiver(CapsuleRepository capsuleRepository,
+                           ArchivedCapsuleRepository archivedCapsuleRepository,
+                           WriteQueue writeQueue,
+                           CapsuleStatsService capsuleStats,
+                           MeterRegistry meterRegistry,
+                           @Value("${capsule.archive.enabled:true}") boolean enabled,
+                           @Value("${capsule.archive.mode:archive}") String mode,
+                           @Value("${capsule.archive.retention:P1D}") Duration retention,
+                           @Value("${capsule.archive.batch-size:200}") int batchSize,
+                           @Value("${capsule.archive.max-duty-cycle:0.1}") double maxDutyCycle,
+                           @Value("${capsule.archive.idle-interval:PT1M}") Duration idleInterval) {
+        this.capsuleRepository = capsuleRepository;
+        this.archivedCapsuleRepository = archivedCapsuleRepository;
+        this.writeQueue = writeQueue;
+        this.capsuleStats = capsuleStats;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.purge = "purge".equals(mode);
+        this.retention = retention;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxDutyCycle = Math.min(1.0, Math.max(0.01, maxDutyCycle));
+        this.idleInterval = idleInterval;
+        this.archivedRows = Counter.builder("capsule.archive.rows")
+                .description("已归档到 capsules_archive 的胶囊数")
+                .tag("action", "archive")
+                .register(meterRegistry);
+        this.purgedRows = Counter.builder("capsule.archive.rows")
+                .description("已清理的胶囊数")
+                .tag("action", "purge")
+                .register(meterRegistry);
+        this.reclaimedBytes = Counter.builder("capsule.archive.reclaimed.bytes")
+                .description("从 capsules 表移出的数据字节数（估算）")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.throttledRuns = Counter.builder("capsule.archive.throttled")
+                .description("因前台负载跳过的调度次数")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${capsule.archive.interval:PT1S}",
+               initialDelayString = "${capsule.archive.interval:PT1S}")
+    public void archiveBatch() {
+        if (!enabled || System.currentTimeMillis() < nextRunAt) {
+            return;
+        }
+        if (isForegroundBusy()) {
+            throttledRuns.increment();
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            int processed = writeQueue.execute(this::processBatch);
+            capsuleStats.recordArchived(processed, purge);
+            lastRunAt = LocalDateTime.now();
+            long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            if (processed < batchSize) {
+                nextRunAt = System.currentTimeMillis() + idleInterval.toMillis();
+            } else {
+                nextRunAt = System.currentTimeMillis() + (long) (elapsedMillis * (1 - maxDutyCycle) / maxDutyCycle);
+            }
+            if (processed > 0) {
+                log.info("{}软删除胶囊: count={}, elapsed={}ms", purge ? "清理" : "归档", processed, elapsedMillis);
+            }
+        } catch (RuntimeException e) {
+            nextRunAt = System.currentTimeMillis() + idleInterval.toMillis();
+            log.warn("归档软删除胶囊失败，稍后重试: {}", e.getMessage());
+        }
+    }
+
+    public ArchiveStatsResponse getStats() {
+        ArchiveStatsResponse stats = new ArchiveStatsResponse();
+        stats.setEnabled(enabled);
+        stats.setMode(purge ? "purge" : "archive");
+        stats.setArchivedRows((long) archivedRows.count());
+        stats.setPurgedRows((long) purgedRows.count());
+        stats.setReclaimedBytes((long) reclaimedBytes.count());
+        stats.setThrottledRuns((long) throttledRuns.count());
+        stats.setLastRunAt(lastRunAt);
+        return stats;
+    }
+
+    /**
+     * 在写事务中处理一批，返回处理的胶囊数
+     */
+    private int processBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = capsuleRepository.findArchivableIds(now.minus(retention), PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long bytes = capsuleRepository.sumVariableColumnBytes(ids) + FIXED_ROW_BYTES * ids.size();
+        if (!purge) {
+            archivedCapsuleRepository.copyFromCapsules(ids, now);
+        }
+        capsuleRepository.deleteAllByIdInBatch(ids);
+        (purge ? purgedRows : archivedRows).increment(ids.size());
+        reclaimedBytes.increment(bytes);
+        return ids.size();
+    }
+
+    /**
+     * 有线程在等待数据库连接，或写队列中有待执行的写入
+     */
+    private boolean isForegroundBusy() {
+        double awaiting = meterRegistry.find("hikaricp.connections.pending").gauges().stream()
+                .mapToDouble(Gauge::value)
+                .filter(value -> !Double.isNaN(value))
+                .sum();
+        return awaiting > 0 || writeQueue.getQueueSize() > 0;
+    }
+}
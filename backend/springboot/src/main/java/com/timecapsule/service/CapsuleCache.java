@@ -0,0 +1,215 @@
+package com.timecapsule.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.timecapsule.dto.CacheStatsResponse;
+import com.timecapsule.event.CapsuleOpenedEvent;
+import com.timecapsule.model.Capsule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 胶囊查询缓存
+ *
+ * 使用 Caffeine（W-TinyLFU 淘汰策略）缓存热点胶囊。未到开启时间的胶囊只缓存元数据，
+ * 并在开启时间到达时过期，下一次读取会重新加载完整内容，从而自动切换为已开启视图。
+ */
+@Component
+@Slf4j
+public class CapsuleCache {
+
+    /**
+     * 失效记录的保留时间，需长于一次加载可能耗费的时间
+     */
+    private static final Duration TOMBSTONE_TTL = Duration.ofMinutes(5);
+
+    private final boolean enabled;
+    private final Cache<String, Capsule> cache;
+    private final Cache<String, Long> tombstones;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public CapsuleCache(@Value("${capsule.cache.enabled:true}") boolean enabled,
+                        @Value("${capsule.cache.maximum-size:10000}") long maximumSize,
+                        @Value("${capsule.cache.ttl:PT1H}") Duration ttl) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new OpenTimeExpiry(ttl))
+                .recordStats()
+                .build();
+        this.tombstones = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(TOMBSTONE_TTL)
+                .build();
+        log.info("胶囊缓存初始化: enabled={}, maximumSize={}, ttl={}", enabled, maximumSize, ttl);
+    }
+
+    /**
+     * 获取胶囊，未命中时通过 loader 加载；loader 返回 null 表示胶囊不存在，不会被缓存
+     * 
+     * now 是本次请求判断开启状态的时刻，loader 必须用同一个 now 决定是否读取内容；
+     * 缓存的未开启视图在 now 已到开启时间时视为未命中，因此返回的胶囊在 now 时可开启就一定带有内容。
+     * 
+     * 不使用 cache.get(key, loader)：它在 ConcurrentHashMap 的 synchronized 桶锁内执行 loader，
+     * loader 中的 JDBC 调用会把虚拟线程固定在载体线程上。这里在锁外加载再写入，
+     * 并发未命中时同一个胶囊可能被加载多次，结果相同，可以接受。
+     * 加载前记下失效序号，加载期间该胶囊码被 evict 过时结果不写入缓存，避免把删除前读到的胶囊放回缓存。
+     */
+    public Capsule get(String capsuleCode, LocalDateTime now, Function<String, Capsule> loader) {
+        if (!enabled) {
+            return loader.apply(capsuleCode);
+        }
+
+        long stamp = invalidations.get();
+        Capsule capsule = cache.getIfPresent(capsuleCode);
+
+        // 缓存的是未开启视图但已到开启时间，丢弃后重新加载完整内容
+        if (capsule != null && capsule.getContent() == null && capsule.canOpen(now)) {
+            cache.invalidate(capsuleCode);
+            capsule = null;
+        }
+        if (capsule == null) {
+            capsule = snapshot(loader.apply(capsuleCode), now);
+            if (capsule != null) {
+                putIfNotInvalidated(capsuleCode, capsule, stamp);
+            }
+        }
+        return capsule;
+    }
+
+    /**
+     * 移除缓存并记录失效序号，此前开始的加载不再写入；处于事务中时在提交后再移除一次，
+     * 提交前开始的加载可能读到旧数据。提交后的移除排在其他提交回调之前，
+     * 在提交回调中失效的其他缓存重新加载时不会再读到这里的旧数据。
+     */
+    public void evict(@NonNull String capsuleCode) {
+        invalidate(capsuleCode);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCommit() {
+                    invalidate(capsuleCode);
+                }
+            });
+        }
+    }
+
+    /**
+     * 胶囊到达开启时间后移除缓存中的未开启视图，下一次读取加载完整内容
+     */
+    @EventListener
+    public void onCapsuleOpened(CapsuleOpenedEvent event) {
+        cache.invalidate(event.getCapsuleCode());
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public CacheStatsResponse getStats() {
+        CacheStats stats = cache.stats();
+        CacheStatsResponse response = new CacheStatsResponse();
+        response.setEnabled(enabled);
+        response.setSize(cache.estimatedSize());
+        response.setHitCount(stats.hitCount());
+        response.setMissCount(stats.missCount());
+        response.setHitRatio(stats.hitRate());
+        response.setEvictionCount(stats.evictionCount());
+        return response;
+    }
+
+    private void invalidate(String capsuleCode) {
+        tombstones.put(capsuleCode, invalidations.incrementAndGet());
+        cache.invalidate(capsuleCode);
+    }
+
+    /**
+     * 先写入再检查失效记录：与 invalidate 并发时，要么这里看到新的失效序号后移除，
+     * 要么 invalidate 在写入之后执行移除，旧数据都不会留在缓存中
+     */
+    private void putIfNotInvalidated(String capsuleCode, Capsule capsule, long stamp) {
+        cache.put(capsuleCode, capsule);
+        Long invalidated = tombstones.getIfPresent(capsuleCode);
+        if (invalidated != null && invalidated > stamp) {
+            cache.invalidate(capsuleCode);
+        }
+    }
+
+    /**
+     * 复制实体用于缓存，未开启的胶囊不保留内容
+     */
+    private static Capsule snapshot(Capsule source, LocalDateTime now) {
+        if (source == null) {
+            return null;
+        }
+        Capsule copy = new Capsule();
+        copy.setId(source.getId());
+        copy.setCapsuleCode(source.getCapsuleCode());
+        copy.setTitle(source.getTitle());
+        copy.setOpenTime(source.getOpenTime());
+        copy.setCreatorNickname(source.getCreatorNickname());
+        copy.setCreateTime(source.getCreateTime());
+        copy.setIsDeleted(source.getIsDeleted());
+        copy.setRevision(source.getRevision());
+        if (source.canOpen(now)) {
+            copy.setContent(source.getContent());
+        }
+        return copy;
+    }
+
+    /**
+     * 未开启的胶囊在开启时间过期，已开启的胶囊按固定 TTL 过期
+     */
+    private static class OpenTimeExpiry implements Expiry<String, Capsule> {
+
+        private final Duration ttl;
+        private final long ttlNanos;
+
+        OpenTimeExpiry(Duration ttl) {
+            this.ttl = ttl;
+            this.ttlNanos = ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(@NonNull String key, @NonNull Capsule capsule, long currentTime) {
+            if (capsule.getContent() != null) {
+                return ttlNanos;
+            }
+            // 开启时间可以在数百年之后，先与 TTL 比较再换算纳秒，避免 toNanos 溢出
+            Duration untilOpen = Duration.between(LocalDateTime.now(), capsule.getOpenTime());
+            if (untilOpen.isNegative()) {
+                return 0;
+            }
+            return untilOpen.compareTo(ttl) >= 0 ? ttlNanos : untilOpen.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(@NonNull String key, @NonNull Capsule capsule,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(key, capsule, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(@NonNull String key, @NonNull Capsule capsule,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.timecapsule.service;
+
+import com.timecapsule.dto.BloomFilterStatsResponse;
+import com.timecapsule.repository.ArchivedCapsuleRepository;
+import com.timecapsule.repository.CapsuleRepository;
+import com.timecapsule.util.BloomFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 胶囊码布隆过滤器
+ *
+ * 记录所有已分配的胶囊码（包括已软删除和已归档的，它们不能再分配），
+ * 用于在不访问数据库的情况下拒绝一定不存在的胶囊码。
+ * 启动完成前过滤器未就绪，此时所有判断都返回"可能存在"，退化为直接查询数据库。
+ * 过滤器只记录本实例可见的写入，多实例部署时应关闭。
+ *
+ * 拦截次数、放行次数、放行后未找到的次数、估算的置位比例和误判率同时注册为 capsule.bloom.filter.* 指标。
+ */
+@Component
+@Slf4j
+public class CapsuleCodeFilter {
+
+    private final CapsuleRepository capsuleRepository;
+    private final ArchivedCapsuleRepository archivedCapsuleRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final double fpp;
+    private final BloomFilter filter;
+    private volatile boolean ready = false;
+
+    private final LongAdder rejectedLookups = new LongAdder();
+    private final LongAdder passedLookups = new LongAdder();
+    private final LongAdder passedMisses = new LongAdder();
+
+    public CapsuleCodeFilter(CapsuleRepository capsuleRepository,
+                             ArchivedCapsuleRepository archivedCapsuleRepository,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${capsule.bloom-filter.enabled:true}") boolean enabled,
+                             @Value("${capsule.bloom-filter.expected-insertions:1000000}") long expectedInsertions,
+                             @Value("${capsule.bloom-filter.fpp:0.01}") double fpp) {
+        this.capsuleRepository = capsuleRepository;
+        this.archivedCapsuleRepository = archivedCapsuleRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.fpp = fpp;
+        this.filter = enabled ? new BloomFilter(expectedInsertions, fpp) : null;
+        if (!enabled) {
+            return;
+        }
+        FunctionCounter.builder("capsule.bloom.filter.lookups", rejectedLookups, LongAdder::sum)
+                .tag("result", "rejected")
+                .register(meterRegistry);
+        FunctionCounter.builder("capsule.bloom.filter.lookups", passedLookups, LongAdder::sum)
+                .tag("result", "passed")
+                .register(meterRegistry);
+        FunctionCounter.builder("capsule.bloom.filter.passed.misses", passedMisses, LongAdder::sum)
+                .register(meterRegistry);
+        Gauge.builder("capsule.bloom.filter.insertions", filter, BloomFilter::insertions)
+                .register(meterRegistry);
+        Gauge.builder("capsule.bloom.filter.fill.ratio", filter, BloomFilter::fillRatio)
+                .register(meterRegistry);
+        Gauge.builder("capsule.bloom.filter.expected.fpp", filter, BloomFilter::expectedFpp)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 启动后从数据库加载全部胶囊码
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<String> codes = capsuleRepository.streamAllCapsuleCodes()) {
+                codes.forEach(filter::put);
+            }
+            try (Stream<String> codes = archivedCapsuleRepository.streamAllCapsuleCodes()) {
+                codes.forEach(filter::put);
+            }
+        });
+        ready = true;
+        log.info("胶囊码布隆过滤器构建完成: codes={}, memory={}KB, elapsed={}ms",
+                filter.insertions(), filter.memoryBytes() / 1024, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 判断胶囊码是否可能存在；返回 false 时一定不存在
+     */
+    public boolean mightContain(String capsuleCode) {
+        if (!enabled || !ready) {
+            return true;
+        }
+        return filter.mightContain(capsuleCode);
+    }
+
+    /**
+     * 查询时判断胶囊码是否可能存在，并记录拦截统计
+     */
+    public boolean mightExist(String capsuleCode) {
+        boolean result = mightContain(capsuleCode);
+        if (result) {
+            passedLookups.increment();
+        } else {
+            rejectedLookups.increment();
+        }
+        return result;
+    }
+
+    /**
+     * 记录新分配的胶囊码
+     */
+    public void put(String capsuleCode) {
+        if (enabled) {
+            filter.put(capsuleCode);
+        }
+    }
+
+    /**
+     * 记录一次放行后未找到：可能是误判，也可能是已软删除或已归档的胶囊码（仍在过滤器中）。
+     * 查询路径上不再区分两者，避免为统计多查两次数据库；误判率参考 expectedFpp
+     */
+    public void recordPassedMiss() {
+        if (enabled && ready) {
+            passedMisses.increment();
+        }
+    }
+
+    /**
+     * 获取过滤器统计信息
+     */
+    public BloomFilterStatsResponse getStats() {
+        BloomFilterStatsResponse response = new BloomFilterStatsResponse();
+        response.setEnabled(enabled);
+        response.setReady(ready);
+        response.setConfiguredFpp(fpp);
+        response.setRejectedLookups(rejectedLookups.sum());
+        response.setPassedLookups(passedLookups.sum());
+        response.setPassedMisses(passedMisses.sum());
+        if (enabled) {
+            response.setBitSize(filter.bitSize());
+            response.setMemoryBytes(filter.memoryBytes());
+            response.setHashFunctions(filter.hashFunctions());
+            response.setInsertions(filter.insertions());
+            response.setExpectedFpp(filter.expectedFpp());
+        }
+        return response;
+    }
+}
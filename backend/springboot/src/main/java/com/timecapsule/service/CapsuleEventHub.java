@@ -0,0 +1,382 @@
+package com.timecapsule.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.timecapsule.dto.ApiResponse;
+import com.timecapsule.dto.CapsuleCountdown;
+import com.timecapsule.dto.CapsuleResponse;
+import com.timecapsule.event.CapsuleDeletedEvent;
+import com.timecapsule.event.CapsuleOpenedEvent;
+import com.timecapsule.exception.BusinessException;
+import com.timecapsule.exception.ErrorCode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 胶囊开启推送中心
+ *
+ * 同一胶囊码的所有 SSE 订阅者共享一个分组：倒计时由统一的定时任务每隔 tickInterval 推送，
+ * 每个分组每次只序列化一次；胶囊开启时只读取一次胶囊内容，序列化后推送给全部订阅者并结束连接。
+ * 连接由 Servlet 异步请求持有，不占用请求线程。
+ *
+ * emitter.send 在客户端接收缓慢时会阻塞，因此写出在独立的发送线程池中进行，定时任务只负责投递：
+ * 每个订阅者同一时间最多一个写出任务，写出期间到达的倒计时只保留最新一条，开启或删除事件覆盖倒计时。
+ * 单次写出超过 sendTimeout 或失败的订阅者视为已断开，移出分组，阻塞的写出返回后结束连接。
+ */
+@Component
+@Slf4j
+public class CapsuleEventHub {
+
+    private static final String EVENT_TICK = "tick";
+    private static final String EVENT_OPENED = "opened";
+    private static final String EVENT_DELETED = "deleted";
+
+    private final CapsuleService capsuleService;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMs;
+    private final long sendTimeoutNanos;
+    private final Map<String, Group> groups = new ConcurrentHashMap<>();
+    private final Set<Subscriber> sending = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sender;
+
+    public CapsuleEventHub(CapsuleService capsuleService,
+                           ObjectMapper objectMapper,
+                           @Value("${capsule.sse.timeout:PT30M}") Duration timeout,
+                           @Value("${capsule.sse.send-timeout:PT5S}") Duration sendTimeout,
+                           @Value("${capsule.sse.send-threads:8}") int sendThreads) {
+        this.capsuleService = capsuleService;
+        this.objectMapper = objectMapper;
+        this.timeoutMs = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        // ResponseBodyEmitter.send 在 synchronized 中写出，阻塞时会固定虚拟线程的载体线程，这里使用平台线程
+        this.sender = Executors.newFixedThreadPool(sendThreads, Thread.ofPlatform().name("capsule-sse-", 0).factory());
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+    }
+
+    /**
+     * 订阅胶囊开启事件；胶囊已开启时立即推送内容并结束
+     */
+    public SseEmitter subscribe(String capsuleCode) {
+        CapsuleResponse capsule = capsuleService.getCapsuleByCode(capsuleCode);
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        if (capsule.getCanOpen()) {
+            sendAndComplete(emitter, buildEvent(EVENT_OPENED, ApiResponse.success("胶囊已开启", capsule)));
+            return emitter;
+        }
+
+        Group group;
+        Subscriber subscriber;
+        do {
+            group = groups.computeIfAbsent(capsuleCode, code -> new Group(code, capsule.getOpenTime()));
+            subscriber = new Subscriber(emitter, group);
+        } while (!group.add(subscriber));
+
+        Group joined = group;
+        Subscriber joinedSubscriber = subscriber;
+        Runnable remove = () -> joined.remove(joinedSubscriber);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        if (group.finalEvent != null) {
+            // 分组在加入前已结束，直接推送最终事件；连接尚未交给 Servlet 异步请求，写出只进入缓冲，不会阻塞
+            sendAndComplete(emitter, group.finalEvent);
+        } else {
+            subscriber.offer(buildEvent(EVENT_TICK, group.countdown()), false);
+        }
+        return emitter;
+    }
+
+    /**
+     * 推送倒计时；调度器未触发时（例如关闭或多实例部署）也在这里兜底处理已到期的分组
+     */
+    @Scheduled(fixedDelayString = "${capsule.sse.tick-interval:PT10S}")
+    public void tick() {
+        dropStalled();
+        LocalDateTime now = LocalDateTime.now();
+        for (Group group : groups.values()) {
+            if (!now.isBefore(group.openTime)) {
+                open(group);
+                continue;
+            }
+            List<Subscriber> subscribers = group.subscribers;
+            if (subscribers.isEmpty()) {
+                continue;
+            }
+            Set<ResponseBodyEmitter.DataWithMediaType> event = buildEvent(EVENT_TICK, group.countdown());
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(event, false);
+            }
+        }
+    }
+
+    /**
+     * 胶囊开启时推送内容；在任务执行器中处理，不阻塞开启调度器
+     */
+    @Async
+    @EventListener
+    public void onCapsuleOpened(CapsuleOpenedEvent event) {
+        Group group = groups.get(event.getCapsuleCode());
+        if (group != null) {
+            open(group);
+        }
+    }
+
+    /**
+     * 胶囊被删除时通知订阅者并结束连接
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCapsuleDeleted(CapsuleDeletedEvent event) {
+        Group group = groups.get(event.getCapsuleCode());
+        if (group != null) {
+            finish(group, buildEvent(EVENT_DELETED,
+                    ApiResponse.error(ErrorCode.CAPSULE_NOT_FOUND.getCode(), "胶囊已被删除")));
+        }
+    }
+
+    private void open(Group group) {
+        CapsuleResponse capsule;
+        try {
+            capsule = capsuleService.getCapsuleByCode(group.capsuleCode);
+        } catch (BusinessException e) {
+            finish(group, buildEvent(EVENT_DELETED, ApiResponse.error(e.getErrorCode().getCode(), e.getMessage())));
+            return;
+        }
+        if (!capsule.getCanOpen()) {
+            return;
+        }
+        finish(group, buildEvent(EVENT_OPENED, ApiResponse.success("胶囊已开启", capsule)));
+        log.info("推送胶囊开启: code={}, subscribers={}", group.capsuleCode, group.finishedCount);
+    }
+
+    private void finish(Group group, Set<ResponseBodyEmitter.DataWithMediaType> event) {
+        List<Subscriber> subscribers = group.finish(event);
+        groups.remove(group.capsuleCode, group);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event, true);
+        }
+    }
+
+    /**
+     * 单次写出超过 sendTimeout 的订阅者不再投递事件
+     */
+    private void dropStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : sending) {
+            long since = subscriber.sendingSince;
+            if (since != 0 && now - since > sendTimeoutNanos && subscriber.stall()) {
+                log.debug("SSE 订阅者接收过慢，结束连接: code={}", subscriber.group.capsuleCode);
+            }
+        }
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> buildEvent(String name, Object payload) {
+        try {
+            return SseEmitter.event().name(name).data(objectMapper.writeValueAsString(payload)).build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化推送事件失败", e);
+        }
+    }
+
+    private static void sendAndComplete(SseEmitter emitter, Set<ResponseBodyEmitter.DataWithMediaType> event) {
+        try {
+            emitter.send(event);
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * 一次待写出的事件；last 为 true 时写出后结束连接
+     */
+    private record Outgoing(Set<ResponseBodyEmitter.DataWithMediaType> event, boolean last) {
+    }
+
+    /**
+     * 订阅者的写出队列：同一时间最多一个写出任务在发送线程池中执行，待写出的事件只保留一条
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Group group;
+        private final AtomicReference<Outgoing> pending = new AtomicReference<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile long sendingSince;
+
+        Subscriber(SseEmitter emitter, Group group) {
+            this.emitter = emitter;
+            this.group = group;
+        }
+
+        /**
+         * 投递事件；倒计时不覆盖尚未写出的最终事件
+         */
+        void offer(Set<ResponseBodyEmitter.DataWithMediaType> event, boolean last) {
+            if (closed.get()) {
+                return;
+            }
+            Outgoing outgoing = new Outgoing(event, last);
+            pending.updateAndGet(previous -> previous != null && previous.last() && !last ? previous : outgoing);
+            schedule();
+        }
+
+        /**
+         * 写出超时：移出分组，不再投递；阻塞的写出返回后结束连接
+         */
+        boolean stall() {
+            if (!closed.compareAndSet(false, true)) {
+                return false;
+            }
+            group.remove(this);
+            return true;
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // 应用关闭中
+                scheduled.set(false);
+            }
+        }
+
+        private void drain() {
+            Outgoing outgoing;
+            while ((outgoing = pending.getAndSet(null)) != null && !closed.get()) {
+                sendingSince = System.nanoTime();
+                sending.add(this);
+                try {
+                    emitter.send(outgoing.event());
+                    if (outgoing.last()) {
+                        closed.set(true);
+                        emitter.complete();
+                    } else if (closed.get()) {
+                        // 写出期间被判定为超时
+                        emitter.completeWithError(new IOException("SSE 写出超时"));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // 客户端已断开，由 onError/onCompletion 回调清理
+                    closed.set(true);
+                    emitter.completeWithError(e);
+                } finally {
+                    sending.remove(this);
+                    sendingSince = 0;
+                }
+            }
+            scheduled.set(false);
+            if (pending.get() != null && !closed.get()) {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * 同一胶囊码的订阅者分组
+     */
+    private final class Group {
+
+        private final String capsuleCode;
+        private final LocalDateTime openTime;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Set<ResponseBodyEmitter.DataWithMediaType> finalEvent;
+        private boolean removed;
+        private int finishedCount;
+
+        Group(String capsuleCode, LocalDateTime openTime) {
+            this.capsuleCode = capsuleCode;
+            this.openTime = openTime;
+        }
+
+        /**
+         * 加入订阅者；分组已结束时不加入但返回 true，由调用方推送最终事件；
+         * 分组因订阅者为空已被移除时返回 false，调用方需重新获取分组
+         */
+        boolean add(Subscriber subscriber) {
+            lock.lock();
+            try {
+                if (removed) {
+                    return false;
+                }
+                if (finalEvent == null) {
+                    subscribers.add(subscriber);
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(Subscriber subscriber) {
+            subscribers.remove(subscriber);
+            if (subscribers.isEmpty()) {
+                lock.lock();
+                try {
+                    if (subscribers.isEmpty() && finalEvent == null && !removed) {
+                        removed = true;
+                        groups.remove(capsuleCode, this);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        /**
+         * 结束分组，返回需要推送最终事件的订阅者
+         */
+        List<Subscriber> finish(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            lock.lock();
+            try {
+                if (finalEvent != null) {
+                    return List.of();
+                }
+                finalEvent = event;
+                List<Subscriber> snapshot = new ArrayList<>(subscribers);
+                subscribers.clear();
+                finishedCount = snapshot.size();
+                return snapshot;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        CapsuleCountdown countdown() {
+            long seconds = Math.max(0, Duration.between(LocalDateTime.now(), openTime).getSeconds());
+            return new CapsuleCountdown(capsuleCode, seconds, subscribers.size());
+        }
+    }
+}
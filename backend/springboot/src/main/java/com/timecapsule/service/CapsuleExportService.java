@@ -0,0 +1,145 @@
+package com.timecapsule.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.timecapsule.model.Capsule;
+import com.timecapsule.repository.CapsuleRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * 胶囊数据导出（管理员使用）
+ *
+ * 通过 JPA Stream 逐行读取并直接写入响应流，每行写出后即从持久化上下文中分离，
+ * 内存占用与数据量无关。
+ */
+@Service
+@Slf4j
+public class CapsuleExportService {
+    
+    private static final int FLUSH_INTERVAL = 500;
+    private static final String CSV_HEADER = "id,capsuleCode,title,content,creatorNickname,openTime,createdAt\n";
+    
+    private final CapsuleRepository capsuleRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    public CapsuleExportService(CapsuleRepository capsuleRepository,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper) {
+        this.capsuleRepository = capsuleRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * 以 NDJSON 格式导出所有未删除的胶囊，每行一个 JSON 对象
+     */
+    public long exportNdjson(OutputStream out) {
+        return export(out, (capsule, writer) -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)) {
+                generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+                generator.writeStartObject();
+                generator.writeNumberField("id", capsule.getId());
+                generator.writeStringField("capsuleCode", capsule.getCapsuleCode());
+                generator.writeStringField("title", capsule.getTitle());
+                generator.writeStringField("content", capsule.getContent());
+                generator.writeStringField("creatorNickname", capsule.getCreatorNickname());
+                generator.writeStringField("openTime", format(capsule.getOpenTime()));
+                generator.writeStringField("createdAt", format(capsule.getCreateTime()));
+                generator.writeEndObject();
+            }
+            writer.write('\n');
+        }, null);
+    }
+    
+    /**
+     * 以 CSV 格式导出所有未删除的胶囊（RFC 4180 转义）
+     */
+    public long exportCsv(OutputStream out) {
+        return export(out, (capsule, writer) -> {
+            writer.write(String.valueOf(capsule.getId()));
+            writer.write(',');
+            writeCsvField(writer, capsule.getCapsuleCode());
+            writer.write(',');
+            writeCsvField(writer, capsule.getTitle());
+            writer.write(',');
+            writeCsvField(writer, capsule.getContent());
+            writer.write(',');
+            writeCsvField(writer, capsule.getCreatorNickname());
+            writer.write(',');
+            writeCsvField(writer, format(capsule.getOpenTime()));
+            writer.write(',');
+            writeCsvField(writer, format(capsule.getCreateTime()));
+            writer.write('\n');
+        }, CSV_HEADER);
+    }
+    
+    private long export(OutputStream out, RowWriter rowWriter, String header) {
+        long start = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        Long rows = transactionTemplate.execute(status -> {
+            long count = 0;
+            try (Stream<Capsule> capsules = capsuleRepository.streamAllNotDeleted()) {
+                if (header != null) {
+                    writer.write(header);
+                }
+                for (Capsule capsule : (Iterable<Capsule>) capsules::iterator) {
+                    rowWriter.write(capsule, writer);
+                    entityManager.detach(capsule);
+                    if (++count % FLUSH_INTERVAL == 0) {
+                        writer.flush();
+                    }
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return count;
+        });
+        log.info("胶囊导出完成: rows={}, elapsed={}ms", rows, System.currentTimeMillis() - start);
+        return rows == null ? 0 : rows;
+    }
+    
+    private static String format(LocalDateTime time) {
+        return time == null ? null : time.toString();
+    }
+    
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+    
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(Capsule capsule, Writer writer) throws IOException;
+    }
+}
@@ -0,0 +1,336 @@
+package com.timecapsule.service;
+
+import com.timecapsule.dto.OpenSchedulerStatsResponse;
+import com.timecapsule.event.CapsuleCreatedEvent;
+import com.timecapsule.event.CapsuleDeletedEvent;
+import com.timecapsule.event.CapsuleOpenedEvent;
+import com.timecapsule.model.SchedulerCheckpoint;
+import com.timecapsule.repository.CapsuleOpenTime;
+import com.timecapsule.repository.CapsuleRepository;
+import com.timecapsule.repository.SchedulerCheckpointRepository;
+import com.timecapsule.util.HierarchicalTimingWheel;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 胶囊开启调度器
+ *
+ * 按 (openTime, id) 顺序分段加载未来 window 内开启的胶囊放入分层时间轮，
+ * 在开启时刻发布 {@link CapsuleOpenedEvent}。时间轮中最多保留 maxPending 个胶囊，
+ * 超出时暂停加载，待已有胶囊触发后再继续，内存占用与胶囊总数无关。
+ *
+ * 已加载位置用游标 (openTime, id) 表示：不大于游标的胶囊都已进入时间轮或已触发。
+ * 触发进度定期写入检查点，重启后从检查点继续加载，停机期间到期的胶囊会立即补发。
+ * 检查点之后、崩溃之前已触发的事件在重启后会再次发布，订阅方需要按至少一次语义处理。
+ * 时间轮由独立的调度线程推进，不与其他 @Scheduled 任务共用线程，事件在该线程中同步发布，
+ * 耗时的订阅方应使用 @Async。多实例部署时每个实例都会发布事件。
+ */
+@Component
+@Slf4j
+public class CapsuleOpenScheduler {
+
+    private static final String CHECKPOINT_NAME = "capsule_open";
+
+    private final CapsuleRepository capsuleRepository;
+    private final SchedulerCheckpointRepository checkpointRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final long tickMs;
+    private final int wheelSize;
+    private final Duration window;
+    private final int maxPending;
+    private final int batchSize;
+    private final long checkpointIntervalMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, HierarchicalTimingWheel.Entry<CapsuleOpenedEvent>> pending = new HashMap<>();
+    private final LongAdder firedCount = new LongAdder();
+    private HierarchicalTimingWheel<CapsuleOpenedEvent> wheel;
+    private LocalDateTime cursorTime;
+    private long cursorId;
+    private LocalDateTime savedFiredUntil;
+    private long lastCheckpointAt;
+    private volatile boolean ready = false;
+    private ScheduledExecutorService ticker;
+
+    public CapsuleOpenScheduler(CapsuleRepository capsuleRepository,
+                                SchedulerCheckpointRepository checkpointRepository,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${capsule.open-scheduler.enabled:true}") boolean enabled,
+                                @Value("${capsule.open-scheduler.tick:PT1S}") Duration tick,
+                                @Value("${capsule.open-scheduler.wheel-size:60}") int wheelSize,
+                                @Value("${capsule.open-scheduler.window:PT1H}") Duration window,
+                                @Value("${capsule.open-scheduler.max-pending:100000}") int maxPending,
+                                @Value("${capsule.open-scheduler.batch-size:1000}") int batchSize,
+                                @Value("${capsule.open-scheduler.checkpoint-interval:PT10S}") Duration checkpointInterval) {
+        this.capsuleRepository = capsuleRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.tickMs = tick.toMillis();
+        this.wheelSize = wheelSize;
+        this.window = window;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+        this.checkpointIntervalMs = checkpointInterval.toMillis();
+    }
+
+    /**
+     * 启动后从检查点恢复；首次运行时从当前时间开始，不补发历史胶囊
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        LocalDateTime firedUntil = checkpointRepository.findById(CHECKPOINT_NAME)
+                .map(SchedulerCheckpoint::getFiredUntil)
+                .orElseGet(() -> toLocalDateTime(now));
+        lock.lock();
+        try {
+            wheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, now);
+            cursorTime = firedUntil;
+            cursorId = 0;
+            savedFiredUntil = firedUntil;
+            lastCheckpointAt = now;
+            ready = true;
+        } finally {
+            lock.unlock();
+        }
+        log.info("胶囊开启调度器启动: firedUntil={}, tick={}ms, window={}", firedUntil, tickMs, window);
+        ticker = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("capsule-open-scheduler").factory());
+        ticker.scheduleWithFixedDelay(this::tickSafely, 0, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 推进时间轮、发布到期事件，并在需要时加载下一段、写入检查点
+     */
+    public void tick() {
+        if (!ready) {
+            return;
+        }
+        List<CapsuleOpenedEvent> expired = new ArrayList<>();
+        LocalDateTime firedUntil;
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            loadIfNeeded(now, expired);
+            wheel.advance(now, expired::add);
+            for (CapsuleOpenedEvent event : expired) {
+                pending.remove(event.getCapsuleCode());
+            }
+            firedUntil = currentFiredUntil();
+        } finally {
+            lock.unlock();
+        }
+
+        for (CapsuleOpenedEvent event : expired) {
+            try {
+                eventPublisher.publishEvent(event);
+            } catch (RuntimeException e) {
+                log.error("胶囊开启事件处理失败: code={}", event.getCapsuleCode(), e);
+            }
+            firedCount.increment();
+        }
+        if (!expired.isEmpty()) {
+            log.debug("发布胶囊开启事件: count={}", expired.size());
+        }
+
+        if (System.currentTimeMillis() - lastCheckpointAt >= checkpointIntervalMs) {
+            saveCheckpoint(firedUntil);
+        }
+    }
+
+    /**
+     * 调度线程中的异常会取消后续执行，这里记录后继续
+     */
+    private void tickSafely() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            log.error("胶囊开启调度失败", e);
+        }
+    }
+
+    /**
+     * 新建的胶囊落在已加载范围内时直接放入时间轮，否则等加载到对应分段时再读取
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCapsuleCreated(CapsuleCreatedEvent event) {
+        if (!ready) {
+            return;
+        }
+        boolean fireNow = false;
+        lock.lock();
+        try {
+            if (isLoaded(event.getOpenTime(), event.getCapsuleId())) {
+                fireNow = !schedule(new CapsuleOpenedEvent(event.getCapsuleId(), event.getCapsuleCode(), event.getOpenTime()));
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (fireNow) {
+            firedCount.increment();
+            eventPublisher.publishEvent(new CapsuleOpenedEvent(event.getCapsuleId(), event.getCapsuleCode(), event.getOpenTime()));
+        }
+    }
+
+    /**
+     * 删除的胶囊从时间轮中取消
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCapsuleDeleted(CapsuleDeletedEvent event) {
+        if (!ready) {
+            return;
+        }
+        lock.lock();
+        try {
+            HierarchicalTimingWheel.Entry<CapsuleOpenedEvent> entry = pending.remove(event.getCapsuleCode());
+            if (entry != null) {
+                entry.cancel();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!ready) {
+            return;
+        }
+        ready = false;
+        ticker.shutdown();
+        ticker.awaitTermination(10, TimeUnit.SECONDS);
+        lock.lock();
+        try {
+            saveCheckpoint(currentFiredUntil());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取调度器统计信息
+     */
+    public OpenSchedulerStatsResponse getStats() {
+        OpenSchedulerStatsResponse response = new OpenSchedulerStatsResponse();
+        response.setEnabled(enabled);
+        response.setReady(ready);
+        response.setFiredCount(firedCount.sum());
+        if (ready) {
+            lock.lock();
+            try {
+                response.setPending(pending.size());
+                response.setWheelSize(wheel.size());
+                response.setLoadedUntil(cursorTime);
+                response.setFiredUntil(currentFiredUntil());
+            } finally {
+                lock.unlock();
+            }
+        }
+        return response;
+    }
+
+    /**
+     * 游标落后于 now + window/2 时加载下一段，直到到达 now + window 或时间轮已满
+     */
+    private void loadIfNeeded(long now, List<CapsuleOpenedEvent> expired) {
+        LocalDateTime until = toLocalDateTime(now).plus(window);
+        if (cursorTime.isAfter(until.minus(window.dividedBy(2)))) {
+            return;
+        }
+        int loaded = 0;
+        // 停机后补发时大量胶囊直接到期，也计入上限，避免一次性读取全部积压
+        while (pending.size() + expired.size() < maxPending) {
+            int limit = Math.min(batchSize, maxPending - pending.size() - expired.size());
+            List<CapsuleOpenTime> rows = capsuleRepository.findOpenTimesAfter(
+                    cursorTime, cursorId, until, PageRequest.of(0, limit));
+            for (CapsuleOpenTime row : rows) {
+                CapsuleOpenedEvent event = new CapsuleOpenedEvent(row.getId(), row.getCapsuleCode(), row.getOpenTime());
+                if (!schedule(event)) {
+                    expired.add(event);
+                }
+            }
+            loaded += rows.size();
+            if (rows.size() < limit) {
+                cursorTime = until;
+                cursorId = 0;
+                break;
+            }
+            CapsuleOpenTime last = rows.get(rows.size() - 1);
+            cursorTime = last.getOpenTime();
+            cursorId = last.getId();
+        }
+        if (loaded > 0) {
+            log.debug("加载待开启胶囊: count={}, loadedUntil={}, pending={}", loaded, cursorTime, pending.size());
+        }
+    }
+
+    /**
+     * 放入时间轮；已到开启时间时返回 false，由调用方立即发布
+     */
+    private boolean schedule(CapsuleOpenedEvent event) {
+        long dueMs = event.getOpenTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        HierarchicalTimingWheel.Entry<CapsuleOpenedEvent> entry = new HierarchicalTimingWheel.Entry<>(event, dueMs, tickMs);
+        if (!wheel.add(entry)) {
+            return false;
+        }
+        pending.put(event.getCapsuleCode(), entry);
+        return true;
+    }
+
+    /**
+     * (openTime, id) 不大于游标的胶囊已由加载过程处理
+     */
+    private boolean isLoaded(LocalDateTime openTime, long id) {
+        return openTime.isBefore(cursorTime) || (openTime.isEqual(cursorTime) && id <= cursorId);
+    }
+
+    /**
+     * 开启时间早于该值的胶囊都已触发：既已加载，又已被时间轮交出
+     */
+    private LocalDateTime currentFiredUntil() {
+        LocalDateTime wheelTime = toLocalDateTime(wheel.currentTime());
+        return wheelTime.isBefore(cursorTime) ? wheelTime : cursorTime;
+    }
+
+    private void saveCheckpoint(LocalDateTime firedUntil) {
+        lastCheckpointAt = System.currentTimeMillis();
+        if (firedUntil.equals(savedFiredUntil)) {
+            return;
+        }
+        try {
+            checkpointRepository.save(new SchedulerCheckpoint(CHECKPOINT_NAME, firedUntil));
+            savedFiredUntil = firedUntil;
+        } catch (RuntimeException e) {
+            log.warn("保存调度器检查点失败: {}", e.getMessage());
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+}
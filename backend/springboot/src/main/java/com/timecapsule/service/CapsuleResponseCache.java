@@ -0,0 +1,157 @@
+package com.timecapsule.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.timecapsule.dto.CacheStatsResponse;
+import com.timecapsule.event.CapsuleDeletedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 已开启胶囊的响应字节缓存
+ *
+ * 胶囊开启后响应内容不再变化，缓存序列化后的 UTF-8 JSON（较大的响应同时缓存 gzip 压缩结果），
+ * 命中时直接写入响应流，不再构建 DTO 和调用 Jackson。按总字节数限制容量，删除胶囊时移除。
+ * 调用方在读取胶囊前通过 stamp() 取得失效序号，读取期间胶囊被删除时 put 不写入缓存。
+ */
+@Component
+@Slf4j
+public class CapsuleResponseCache {
+
+    /**
+     * 删除记录的保留时间，需长于一次查询请求可能耗费的时间
+     */
+    private static final Duration TOMBSTONE_TTL = Duration.ofMinutes(5);
+    private static final long TOMBSTONE_MAX_SIZE = 10_000;
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long gzipMinSize;
+    private final Cache<String, Entry> cache;
+    private final Cache<String, Long> tombstones;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public CapsuleResponseCache(ObjectMapper objectMapper,
+                                @Value("${capsule.response-cache.enabled:true}") boolean enabled,
+                                @Value("${capsule.response-cache.max-bytes:64MB}") DataSize maxBytes,
+                                @Value("${capsule.response-cache.ttl:PT1H}") Duration ttl,
+                                @Value("${capsule.response-cache.gzip-min-size:1KB}") DataSize gzipMinSize) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.gzipMinSize = gzipMinSize.toBytes();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes.toBytes())
+                .weigher((String code, Entry entry) -> entry.weight())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.tombstones = Caffeine.newBuilder()
+                .maximumSize(TOMBSTONE_MAX_SIZE)
+                .expireAfterWrite(TOMBSTONE_TTL)
+                .build();
+        log.info("响应缓存初始化: enabled={}, maxBytes={}, ttl={}", enabled, maxBytes, ttl);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 获取缓存的响应，未命中或未启用时返回 null
+     */
+    public Entry get(String capsuleCode) {
+        return enabled ? cache.getIfPresent(capsuleCode) : null;
+    }
+
+    /**
+     * 当前的失效序号，在读取胶囊之前获取并传给 put
+     */
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * 序列化响应并缓存；调用方需保证响应已不会再变化。
+     * stamp 之后该胶囊码被删除过时只返回序列化结果，不写入缓存
+     */
+    public Entry put(String capsuleCode, long stamp, Object response, String eTag) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化胶囊响应失败", e);
+        }
+        Entry entry = new Entry(body, body.length >= gzipMinSize ? gzip(body) : null, eTag);
+        if (enabled) {
+            // 先写入再检查删除记录，与 onCapsuleDeleted 并发时旧响应不会留在缓存中
+            cache.put(capsuleCode, entry);
+            Long invalidated = tombstones.getIfPresent(capsuleCode);
+            if (invalidated != null && invalidated > stamp) {
+                cache.invalidate(capsuleCode);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * 胶囊删除提交后移除缓存的响应，并拒绝此前开始的查询写入
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCapsuleDeleted(CapsuleDeletedEvent event) {
+        tombstones.put(event.getCapsuleCode(), invalidations.incrementAndGet());
+        cache.invalidate(event.getCapsuleCode());
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public CacheStatsResponse getStats() {
+        CacheStats stats = cache.stats();
+        CacheStatsResponse response = new CacheStatsResponse();
+        response.setEnabled(enabled);
+        response.setSize(cache.estimatedSize());
+        response.setHitCount(stats.hitCount());
+        response.setMissCount(stats.missCount());
+        response.setHitRatio(stats.hitRate());
+        response.setEvictionCount(stats.evictionCount());
+        return response;
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] compressed = out.toByteArray();
+        return compressed.length < body.length ? compressed : null;
+    }
+
+    /**
+     * 缓存的响应：JSON 字节、可选的 gzip 字节和对应的 ETag
+     */
+    @lombok.Value
+    public static class Entry {
+        byte[] body;
+        byte[] gzipBody;
+        String eTag;
+
+        int weight() {
+            return body.length + (gzipBody == null ? 0 : gzipBody.length);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.timecapsule.service;
+
+import com.timecapsule.dto.PageResponse;
+import com.timecapsule.dto.SearchIndexStatsResponse;
+import com.timecapsule.event.CapsuleCreatedEvent;
+import com.timecapsule.event.CapsuleDeletedEvent;
+import com.timecapsule.exception.BusinessException;
+import com.timecapsule.exception.ErrorCode;
+import com.timecapsule.repository.CapsuleRepository;
+import com.timecapsule.repository.CapsuleSearchText;
+import com.timecapsule.util.NgramIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * 管理员胶囊搜索索引
+ *
+ * 按标题和发布者昵称的子串搜索胶囊码。启动后流式读取所有未删除胶囊建立 n-gram 倒排索引，
+ * 之后随创建、删除事件增量更新，查询不访问数据库。构建期间发生变化的胶囊码以事件为准，读取时跳过。
+ * 索引只包含本实例可见的写入，多实例部署时各实例的结果可能不同；重启后重建，已删除的条目随之清除。
+ */
+@Component
+@Slf4j
+public class CapsuleSearchIndex {
+
+    public static final String FIELD_ALL = "all";
+    public static final String FIELD_TITLE = "title";
+    public static final String FIELD_NICKNAME = "nickname";
+
+    private static final int TITLE = 0;
+    private static final int NICKNAME = 1;
+    private static final int MAX_QUERY_LENGTH = 100;
+
+    private final CapsuleRepository capsuleRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final NgramIndex index = new NgramIndex(2);
+    private final Set<String> changedDuringBuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready = false;
+
+    public CapsuleSearchIndex(CapsuleRepository capsuleRepository,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${capsule.search.enabled:true}") boolean enabled) {
+        this.capsuleRepository = capsuleRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        Gauge.builder("capsule.search.index.documents", index, NgramIndex::documents)
+                .register(meterRegistry);
+        Gauge.builder("capsule.search.index.memory", index, NgramIndex::memoryBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 启动后从数据库加载全部未删除胶囊的标题和昵称
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<CapsuleSearchText> rows = capsuleRepository.streamAllSearchTexts()) {
+                rows.forEach(row -> {
+                    if (!changedDuringBuild.contains(row.getCapsuleCode())) {
+                        index.add(row.getCapsuleCode(), row.getTitle(), row.getCreatorNickname());
+                    }
+                });
+            }
+        });
+        ready = true;
+        changedDuringBuild.clear();
+        log.info("胶囊搜索索引构建完成: documents={}, terms={}, memory={}KB, elapsed={}ms",
+                index.documents(), index.terms(), index.memoryBytes() / 1024, System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCapsuleCreated(CapsuleCreatedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!ready) {
+            changedDuringBuild.add(event.getCapsuleCode());
+        }
+        index.add(event.getCapsuleCode(), event.getTitle(), event.getCreatorNickname());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCapsuleDeleted(CapsuleDeletedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!ready) {
+            changedDuringBuild.add(event.getCapsuleCode());
+        }
+        index.remove(event.getCapsuleCode());
+    }
+
+    /**
+     * 搜索标题或昵称包含 query 的胶囊，按创建顺序从新到旧分页返回胶囊码
+     */
+    public PageResponse<String> search(String query, String field, int page, int size) {
+        if (!enabled) {
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "胶囊搜索未开启");
+        }
+        if (!ready) {
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "搜索索引正在构建，请稍后重试");
+        }
+        if (query == null || query.isBlank()) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "搜索关键字不能为空");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "搜索关键字不能超过 " + MAX_QUERY_LENGTH + " 个字符");
+        }
+        int fieldIndex = switch (field) {
+            case FIELD_ALL -> -1;
+            case FIELD_TITLE -> TITLE;
+            case FIELD_NICKNAME -> NICKNAME;
+            default -> throw new BusinessException(ErrorCode.VALIDATION_ERROR, "field 只能是 all、title 或 nickname");
+        };
+        int pageSize = Math.max(1, Math.min(size, 100));
+        int currentPage = Math.max(1, page);
+        int offset = (int) Math.min(Integer.MAX_VALUE, (long) (currentPage - 1) * pageSize);
+        NgramIndex.Result result = index.search(query, fieldIndex, offset, pageSize);
+        int totalPages = (int) ((result.getTotal() + pageSize - 1) / pageSize);
+        return new PageResponse<>(result.getCodes(),
+                new PageResponse.Pagination(currentPage, pageSize, result.getTotal(), totalPages));
+    }
+
+    public SearchIndexStatsResponse getStats() {
+        SearchIndexStatsResponse stats = new SearchIndexStatsResponse();
+        stats.setEnabled(enabled);
+        stats.setReady(ready);
+        stats.setDocuments(index.documents());
+        stats.setDeletedDocuments(index.deletedDocuments());
+        stats.setTerms(index.terms());
+        stats.setMemoryBytes(index.memoryBytes());
+        return stats;
+    }
+}
@@ -1,25 +1,44 @@
 package com.timecapsule.service;
 
+import com.timecapsule.dto.BatchCreateResponse;
 import com.timecapsule.dto.CapsuleCreateRequest;
 import com.timecapsule.dto.CapsuleResponse;
+import com.timecapsule.dto.CursorPageResponse;
 import com.timecapsule.dto.PageResponse;
+import com.timecapsule.event.CapsuleCreatedEvent;
+import com.timecapsule.event.CapsuleDeletedEvent;
 import com.timecapsule.exception.BusinessException;
 import com.timecapsule.exception.ErrorCode;
 import com.timecapsule.model.Capsule;
+import com.timecapsule.repository.ArchivedCapsuleRepository;
 import com.timecapsule.repository.CapsuleRepository;
+import com.timecapsule.repository.CapsuleView;
 import com.timecapsule.util.CapsuleCodeGenerator;
+import com.timecapsule.util.PageCursor;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,10 +49,32 @@ public class CapsuleService {
     
     private final CapsuleRepository capsuleRepository;
     private final CapsuleCodeGenerator codeGenerator;
+    private final CapsuleCache capsuleCache;
+    private final CapsuleCodeFilter codeFilter;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final ReadYourWritesTracker readYourWrites;
+    private final WriteQueue writeQueue;
+    private final WriteBehindBuffer writeBehind;
+    private final ArchivedCapsuleRepository archivedCapsuleRepository;
+    
+    @Value("${capsule.batch.max-size:500}")
+    private int batchMaxSize = 500;
+    
+    @Value("${capsule.pagination.count-cache-ttl:PT30S}")
+    private Duration countCacheTtl = Duration.ofSeconds(30);
+    
+    private volatile long cachedTotal;
+    private volatile long cachedTotalAt;
     
     /**
      * 创建新的时间胶囊
+     * 
+     * 校验和生成胶囊码在调用线程完成，写入经写事务执行器提交；
+     * 开启写后缓冲时写入本地日志后即返回，由后台批量入库
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public CapsuleResponse createCapsule(CapsuleCreateRequest request) {
         log.info("开始创建胶囊: title={}", request.getTitle());
         
@@ -43,57 +84,152 @@ public class CapsuleService {
         }
         
         // 生成唯一的胶囊码
-        String capsuleCode;
-        int attempts = 0;
-        do {
-            capsuleCode = codeGenerator.generateCode();
-            attempts++;
-            if (attempts > 10) {
-                throw new BusinessException(ErrorCode.INTERNAL_ERROR, "生成胶囊码失败，请稍后重试");
-            }
-        } while (capsuleRepository.existsByCapsuleCode(capsuleCode));
+        String capsuleCode = generateUniqueCode();
         
-        // 创建胶囊实体
-        Capsule capsule = new Capsule();
-        capsule.setCapsuleCode(capsuleCode);
-        capsule.setTitle(request.getTitle());
-        capsule.setContent(request.getContent());
-        capsule.setOpenTime(request.getOpenTime());
-        capsule.setCreatorNickname(request.getCreatorNickname());
-        capsule.setIsDeleted(false);
+        Capsule journaled = newCapsule(request, capsuleCode);
+        if (writeBehind.append(journaled)) {
+            codeFilter.put(capsuleCode);
+            publishCreated(journaled);
+            log.info("胶囊已写入日志: id={}, code={}", journaled.getId(), capsuleCode);
+            return CapsuleResponse.fromEntity(journaled, false);
+        }
         
-        // 保存到数据库
-        Capsule savedCapsule = capsuleRepository.save(capsule);
+        // 创建胶囊实体并保存到数据库
+        Capsule savedCapsule = writeQueue.execute(() -> {
+            Capsule saved = capsuleRepository.save(newCapsule(request, capsuleCode));
+            codeFilter.put(capsuleCode);
+            publishCreated(saved);
+            return saved;
+        });
         log.info("胶囊创建成功: id={}, code={}", savedCapsule.getId(), savedCapsule.getCapsuleCode());
         
         return CapsuleResponse.fromEntity(savedCapsule, false);
     }
     
+    /**
+     * 批量创建时间胶囊
+     * 
+     * 逐条校验请求，校验失败的条目在结果中返回错误；其余条目一次性分配胶囊码，
+     * 在同一事务中通过 JDBC 批处理写入。
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchCreateResponse createCapsules(List<CapsuleCreateRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "批量创建列表不能为空");
+        }
+        if (requests.size() > batchMaxSize) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "单次最多创建 " + batchMaxSize + " 个胶囊");
+        }
+        log.info("开始批量创建胶囊: count={}", requests.size());
+        
+        BatchCreateResponse.ItemResult[] results = new BatchCreateResponse.ItemResult[requests.size()];
+        List<Integer> indexes = new ArrayList<>(requests.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < requests.size(); i++) {
+            CapsuleCreateRequest request = requests.get(i);
+            String error = validateCreateRequest(request, now);
+            if (error != null) {
+                results[i] = BatchCreateResponse.ItemResult.error(i, ErrorCode.VALIDATION_ERROR.getCode(), error);
+                continue;
+            }
+            indexes.add(i);
+        }
+        
+        if (!indexes.isEmpty()) {
+            List<String> codes = generateUniqueCodes(indexes.size());
+            List<Capsule> capsules = writeQueue.execute(() -> {
+                List<Capsule> batch = new ArrayList<>(indexes.size());
+                for (int i = 0; i < indexes.size(); i++) {
+                    batch.add(newCapsule(requests.get(indexes.get(i)), codes.get(i)));
+                }
+                capsuleRepository.saveAll(batch);
+                capsuleRepository.flush();
+                for (Capsule capsule : batch) {
+                    codeFilter.put(capsule.getCapsuleCode());
+                    publishCreated(capsule);
+                }
+                return batch;
+            });
+            for (int i = 0; i < capsules.size(); i++) {
+                Capsule capsule = capsules.get(i);
+                results[indexes.get(i)] = BatchCreateResponse.ItemResult.success(
+                        indexes.get(i), CapsuleResponse.fromEntity(capsule, false));
+            }
+        }
+        
+        BatchCreateResponse response = new BatchCreateResponse(Arrays.asList(results));
+        log.info("批量创建胶囊完成: succeeded={}, failed={}", response.getSucceeded(), response.getFailed());
+        return response;
+    }
+    
     /**
      * 根据胶囊码获取胶囊信息
+     * 
+     * 优先从缓存读取，缓存命中时不开启事务、不占用数据库连接
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public CapsuleResponse getCapsuleByCode(String capsuleCode) {
         log.info("查询胶囊: code={}", capsuleCode);
         
-        Capsule capsule = capsuleRepository.findByCapsuleCodeAndNotDeleted(capsuleCode)
-                .orElseThrow(() -> new BusinessException(ErrorCode.CAPSULE_NOT_FOUND, 
-                    "未找到该胶囊，请检查胶囊码是否正确"));
+        // 写后缓冲中尚未入库的胶囊
+        Capsule journaled = writeBehind.find(capsuleCode);
+        if (journaled != null) {
+            return CapsuleResponse.fromEntity(journaled, true);
+        }
+        
+        // 布隆过滤器判定一定不存在的胶囊码直接返回，不访问数据库
+        if (!codeFilter.mightExist(capsuleCode)) {
+            throw new BusinessException(ErrorCode.CAPSULE_NOT_FOUND, "未找到该胶囊，请检查胶囊码是否正确");
+        }
+        
+        // 查询是否读取内容、缓存是否过期和响应的 canOpen 都按同一时刻判断，跨过开启时间的请求不会得到没有内容的已开启结果
+        LocalDateTime now = LocalDateTime.now();
         
-        return CapsuleResponse.fromEntity(capsule, true);
+        // 开启读写分离时，刚创建或删除的胶囊码改从主库读取
+        Capsule capsule = capsuleCache.get(capsuleCode, now,
+                code -> readYourWrites.read(code, () -> capsuleRepository.findViewByCapsuleCode(code, now))
+                        .map(CapsuleView::toCapsule)
+                        .orElse(null));
+        if (capsule == null) {
+            codeFilter.recordPassedMiss();
+            throw new BusinessException(ErrorCode.CAPSULE_NOT_FOUND, "未找到该胶囊，请检查胶囊码是否正确");
+        }
+        
+        return CapsuleResponse.fromEntity(capsule, true, now);
     }
     
     /**
      * 根据胶囊码删除胶囊（管理员功能）
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public CapsuleResponse deleteCapsuleByCode(@NonNull String capsuleCode) {
         log.info("删除胶囊: code={}", capsuleCode);
         
-        Capsule capsule = capsuleRepository.findByCapsuleCodeAndNotDeleted(capsuleCode)
-                .orElseThrow(() -> new BusinessException(ErrorCode.CAPSULE_NOT_FOUND, "未找到该胶囊"));
-        
-        capsule.setIsDeleted(true);
-        capsuleRepository.save(capsule);
+        // 仍在写后缓冲中的胶囊先入库；入库失败时不能继续，否则胶囊之后仍会由后台入库
+        if (writeBehind.isPending(capsuleCode)) {
+            try {
+                writeBehind.flush();
+            } catch (IOException | RuntimeException e) {
+                log.warn("删除前入库写后缓冲失败: code={}, {}", capsuleCode, e.getMessage());
+            }
+            if (writeBehind.isPending(capsuleCode)) {
+                throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "胶囊正在入库，请稍后重试");
+            }
+        }
+        writeQueue.execute(() -> {
+            Capsule capsule = capsuleRepository.findByCapsuleCodeAndNotDeleted(capsuleCode)
+                    .orElseThrow(() -> new BusinessException(ErrorCode.CAPSULE_NOT_FOUND, "未找到该胶囊"));
+            
+            // 软删除及归档后胶囊码仍不可复用，因此保留在布隆过滤器中
+            capsule.setIsDeleted(true);
+            capsule.setDeletedAt(LocalDateTime.now());
+            capsule.bumpRevision();
+            capsuleRepository.save(capsule);
+            // 在事务内移除缓存，提交后的再次移除先于删除事件的监听器执行
+            capsuleCache.evict(capsuleCode);
+            eventPublisher.publishEvent(new CapsuleDeletedEvent(capsuleCode, capsule.getOpenTime()));
+            return capsule;
+        });
         
         CapsuleResponse response = new CapsuleResponse();
         response.setCapsuleCode(capsuleCode);
@@ -125,10 +261,11 @@ public class CapsuleService {
         }
         
         Pageable pageable = PageRequest.of(page - 1, Math.min(size, 100), sorting);
-        Page<Capsule> capsulePage = capsuleRepository.findAllNotDeleted(pageable);
+        LocalDateTime now = LocalDateTime.now();
+        Page<CapsuleView> capsulePage = capsuleRepository.findAllNotDeleted(now, pageable);
         
         List<CapsuleResponse> items = capsulePage.getContent().stream()
-                .map(capsule -> CapsuleResponse.fromEntity(capsule, true))
+                .map(view -> CapsuleResponse.fromEntity(view.toCapsule(), true, now))
                 .collect(Collectors.toList());
         
         PageResponse.Pagination pagination = new PageResponse.Pagination(
@@ -141,6 +278,184 @@ public class CapsuleService {
         return new PageResponse<>(items, pagination);
     }
     
+    /**
+     * 获取所有未删除的胶囊（管理员使用）- 键集分页
+     * 
+     * 按 (createTime, id) 定位下一页，不执行 COUNT 查询，深翻页不扫描被跳过的行
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<CapsuleResponse> getCapsulesByCursor(String cursor, int size, String sort, boolean withTotal) {
+        log.info("键集分页获取胶囊列表: size={}, sort={}", size, sort);
+        
+        boolean ascending = false;
+        if (sort != null && !sort.isEmpty()) {
+            String[] parts = sort.split(",");
+            if (parts.length != 2 || !"createdAt".equals(parts[0])) {
+                throw new BusinessException(ErrorCode.VALIDATION_ERROR, "游标分页仅支持按 createdAt 排序");
+            }
+            ascending = "asc".equalsIgnoreCase(parts[1]);
+        }
+        
+        int pageSize = Math.max(1, Math.min(size, 100));
+        // 多取一条用于判断是否还有下一页
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        LocalDateTime now = LocalDateTime.now();
+        List<CapsuleView> capsules;
+        if (cursor == null || cursor.isEmpty()) {
+            capsules = ascending
+                    ? capsuleRepository.findFirstPageAsc(now, limit)
+                    : capsuleRepository.findFirstPageDesc(now, limit);
+        } else {
+            PageCursor position = PageCursor.decode(cursor);
+            capsules = ascending
+                    ? capsuleRepository.findPageAfter(position.getCreateTime(), position.getId(), now, limit)
+                    : capsuleRepository.findPageBefore(position.getCreateTime(), position.getId(), now, limit);
+        }
+        
+        boolean hasMore = capsules.size() > pageSize;
+        if (hasMore) {
+            capsules = capsules.subList(0, pageSize);
+        }
+        
+        List<CapsuleResponse> items = capsules.stream()
+                .map(view -> CapsuleResponse.fromEntity(view.toCapsule(), true, now))
+                .collect(Collectors.toList());
+        
+        String nextCursor = null;
+        if (hasMore) {
+            CapsuleView last = capsules.get(capsules.size() - 1);
+            nextCursor = new PageCursor(last.getCreateTime(), last.getId()).encode();
+        }
+        
+        CursorPageResponse<CapsuleResponse> response = new CursorPageResponse<>(items, nextCursor, hasMore, pageSize);
+        if (withTotal) {
+            response.setApproximateTotal(getApproximateTotal());
+        }
+        return response;
+    }
+    
+    /**
+     * 近似总数，在 countCacheTtl 内复用上一次的 COUNT 结果
+     */
+    private long getApproximateTotal() {
+        long now = System.currentTimeMillis();
+        if (now - cachedTotalAt > countCacheTtl.toMillis()) {
+            cachedTotal = capsuleRepository.countNotDeleted();
+            cachedTotalAt = now;
+        }
+        return cachedTotal;
+    }
+    
+    /**
+     * 生成唯一的胶囊码
+     * 
+     * 布隆过滤器判定可能存在时查询数据库确认（包括归档表）；feistel 策略也要检查，
+     * 它生成的胶囊码之间不重复，但可能与切换前的随机胶囊码冲突
+     */
+    private String generateUniqueCode() {
+        String capsuleCode = codeGenerator.generateCode();
+        int attempts = 1;
+        while (writeBehind.isPending(capsuleCode)
+                || (codeFilter.mightContain(capsuleCode) && isCodeTaken(capsuleCode))) {
+            recordCodeCollisions(1);
+            if (++attempts > 10) {
+                throw new BusinessException(ErrorCode.INTERNAL_ERROR, "生成胶囊码失败，请稍后重试");
+            }
+            capsuleCode = codeGenerator.generateCode();
+        }
+        return capsuleCode;
+    }
+    
+    private boolean isCodeTaken(String capsuleCode) {
+        return capsuleRepository.existsByCapsuleCode(capsuleCode)
+                || archivedCapsuleRepository.existsByCapsuleCode(capsuleCode);
+    }
+    
+    private static Capsule newCapsule(CapsuleCreateRequest request, String capsuleCode) {
+        Capsule capsule = new Capsule();
+        capsule.setCapsuleCode(capsuleCode);
+        capsule.setTitle(request.getTitle());
+        capsule.setContent(request.getContent());
+        capsule.setOpenTime(request.getOpenTime());
+        capsule.setCreatorNickname(request.getCreatorNickname());
+        capsule.setIsDeleted(false);
+        return capsule;
+    }
+    
+    private void publishCreated(Capsule capsule) {
+        eventPublisher.publishEvent(new CapsuleCreatedEvent(capsule.getId(), capsule.getCapsuleCode(), capsule.getOpenTime(),
+                capsule.getTitle(), capsule.getCreatorNickname()));
+    }
+    
+    /**
+     * 批量生成唯一的胶囊码
+     * 
+     * 每轮生成所缺数量的候选码，只对布隆过滤器判定可能存在的候选码做一次 IN 查询，
+     * 不再逐个执行 existsByCapsuleCode
+     */
+    private List<String> generateUniqueCodes(int count) {
+        Set<String> codes = new LinkedHashSet<>(count * 2);
+        int rounds = 0;
+        while (codes.size() < count) {
+            if (++rounds > 10) {
+                throw new BusinessException(ErrorCode.INTERNAL_ERROR, "生成胶囊码失败，请稍后重试");
+            }
+            Set<String> candidates = new LinkedHashSet<>();
+            while (codes.size() + candidates.size() < count) {
+                String candidate = codeGenerator.generateCode();
+                if (!codes.contains(candidate)) {
+                    candidates.add(candidate);
+                }
+            }
+            candidates.removeIf(writeBehind::isPending);
+            List<String> suspects = candidates.stream()
+                    .filter(codeFilter::mightContain)
+                    .collect(Collectors.toList());
+            if (!suspects.isEmpty()) {
+                List<String> existing = capsuleRepository.findExistingCapsuleCodes(suspects);
+                recordCodeCollisions(existing.size());
+                candidates.removeAll(existing);
+                suspects.removeAll(existing);
+                if (!suspects.isEmpty()) {
+                    List<String> archived = archivedCapsuleRepository.findExistingCapsuleCodes(suspects);
+                    recordCodeCollisions(archived.size());
+                    candidates.removeAll(archived);
+                }
+            }
+            codes.addAll(candidates);
+        }
+        return new ArrayList<>(codes);
+    }
+    
+    /**
+     * 记录与已有胶囊码冲突而需要重新生成的次数
+     */
+    private void recordCodeCollisions(int count) {
+        if (count > 0) {
+            meterRegistry.counter("capsule.code.collisions").increment(count);
+        }
+    }
+    
+    /**
+     * 校验单条创建请求，返回错误信息；通过时返回 null
+     */
+    private String validateCreateRequest(CapsuleCreateRequest request, LocalDateTime now) {
+        if (request == null) {
+            return "请求内容不能为空";
+        }
+        Set<ConstraintViolation<CapsuleCreateRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (request.getOpenTime().isBefore(now)) {
+            return "openTime: 开启时间必须是未来的时间";
+        }
+        return null;
+    }
+    
     /**
      * 检查胶囊码格式是否正确
      */
@@ -0,0 +1,271 @@
+package com.timecapsule.service;
+
+import com.timecapsule.dto.CapsuleStatsResponse;
+import com.timecapsule.event.CapsuleCreatedEvent;
+import com.timecapsule.event.CapsuleDeletedEvent;
+import com.timecapsule.event.CapsuleOpenedEvent;
+import com.timecapsule.model.Capsule;
+import com.timecapsule.repository.ArchivedCapsuleRepository;
+import com.timecapsule.repository.CapsuleCounts;
+import com.timecapsule.repository.CapsuleRepository;
+import com.timecapsule.util.TimeBucketCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 胶囊统计
+ *
+ * 未开启、已开启、已删除、已归档的胶囊数用 LongAdder 计数，按小时和按天的创建数用环形时间桶计数，
+ * 随创建、删除、开启事件和归档任务增量更新，读取统计不访问数据库。
+ * 启动后用聚合查询和创建时间窗口内的一次读取初始化，之后每隔 reconcile-interval 与数据库对账并修正偏差
+ * （写后缓冲中尚未入库的胶囊一并计入）；对账期间并发的写入可能造成少量误差，下次对账时修正。
+ *
+ * 未开启与已开启之间的转换依赖开启调度器的事件：开启时间晚于上次对账的胶囊收到开启事件时才转为已开启，
+ * 重启后补发的事件不会重复计数。调度器关闭时该转换只在对账时修正。
+ */
+@Service
+@Slf4j
+public class CapsuleStatsService {
+
+    private static final long HOUR_SECONDS = 3600;
+    private static final long DAY_SECONDS = 86400;
+
+    private final CapsuleRepository capsuleRepository;
+    private final ArchivedCapsuleRepository archivedCapsuleRepository;
+    private final WriteBehindBuffer writeBehind;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int hourlyBuckets;
+    private final int dailyBuckets;
+    private final LongAdder locked = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder deleted = new LongAdder();
+    private final LongAdder archived = new LongAdder();
+    private final TimeBucketCounter hourlyCreations;
+    private final TimeBucketCounter dailyCreations;
+    private final Counter corrections;
+
+    private volatile boolean ready = false;
+    private volatile LocalDateTime reconciledAt;
+    private volatile LocalDateTime openedUntil;
+    private volatile long lastCorrection;
+
+    public CapsuleStatsService(CapsuleRepository capsuleRepository,
+                               ArchivedCapsuleRepository archivedCapsuleRepository,
+                               WriteBehindBuffer writeBehind,
+                               TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${capsule.stats.enabled:true}") boolean enabled,
+                               @Value("${capsule.stats.hourly-buckets:48}") int hourlyBuckets,
+                               @Value("${capsule.stats.daily-buckets:30}") int dailyBuckets) {
+        this.capsuleRepository = capsuleRepository;
+        this.archivedCapsuleRepository = archivedCapsuleRepository;
+        this.writeBehind = writeBehind;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.hourlyBuckets = Math.max(1, hourlyBuckets);
+        this.dailyBuckets = Math.max(1, dailyBuckets);
+        this.hourlyCreations = new TimeBucketCounter(HOUR_SECONDS, this.hourlyBuckets);
+        this.dailyCreations = new TimeBucketCounter(DAY_SECONDS, this.dailyBuckets);
+        this.corrections = Counter.builder("capsule.stats.reconcile.corrections")
+                .description("对账时修正的计数偏差之和")
+                .register(meterRegistry);
+        registerGauge(meterRegistry, "locked", locked);
+        registerGauge(meterRegistry, "opened", opened);
+        registerGauge(meterRegistry, "deleted", deleted);
+        registerGauge(meterRegistry, "archived", archived);
+    }
+
+    /**
+     * 启动后用聚合查询初始化
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        reconcile();
+        if (!ready) {
+            return;
+        }
+        log.info("胶囊统计初始化完成: locked={}, opened={}, deleted={}, archived={}, elapsed={}ms",
+                locked.sum(), opened.sum(), deleted.sum(), archived.sum(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 与数据库对账，用聚合结果替换所有计数
+     */
+    @Scheduled(fixedDelayString = "${capsule.stats.reconcile-interval:PT10M}",
+               initialDelayString = "${capsule.stats.reconcile-interval:PT10M}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = earliestBucketStart(now);
+        Snapshot snapshot;
+        try {
+            snapshot = transactionTemplate.execute(status -> {
+                Snapshot result = new Snapshot();
+                result.counts = capsuleRepository.countByState(now);
+                result.archived = archivedCapsuleRepository.count();
+                try (Stream<LocalDateTime> times = capsuleRepository.streamCreateTimesSince(since)) {
+                    times.forEach(time -> addCreation(result.creations, time));
+                }
+                try (Stream<LocalDateTime> times = archivedCapsuleRepository.streamCreateTimesSince(since)) {
+                    times.forEach(time -> addCreation(result.creations, time));
+                }
+                return result;
+            });
+        } catch (RuntimeException e) {
+            log.warn("胶囊统计对账失败，稍后重试: {}", e.getMessage());
+            return;
+        }
+
+        long lockedTarget = snapshot.counts.getLocked();
+        long openedTarget = snapshot.counts.getOpened();
+        for (Capsule capsule : writeBehind.pendingCapsules()) {
+            if (capsule.getOpenTime().isAfter(now)) {
+                lockedTarget++;
+            } else {
+                openedTarget++;
+            }
+            addCreation(snapshot.creations, capsule.getCreateTime());
+        }
+
+        long correction = correct(locked, lockedTarget)
+                + correct(opened, openedTarget)
+                + correct(deleted, snapshot.counts.getDeleted())
+                + correct(archived, snapshot.archived);
+        hourlyCreations.reset(now, snapshot.creations);
+        dailyCreations.reset(now, snapshot.creations);
+        openedUntil = now;
+        reconciledAt = now;
+        lastCorrection = correction;
+        if (ready && correction > 0) {
+            corrections.increment(correction);
+            log.info("胶囊统计对账修正偏差: correction={}", correction);
+        }
+        ready = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCapsuleCreated(CapsuleCreatedEvent event) {
+        if (!ready) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        locked.increment();
+        hourlyCreations.add(now, 1);
+        dailyCreations.add(now, 1);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCapsuleDeleted(CapsuleDeletedEvent event) {
+        if (!ready) {
+            return;
+        }
+        // 开启时间不晚于最后一个开启事件的胶囊已计入已开启
+        if (event.getOpenTime().isAfter(openedUntil)) {
+            locked.decrement();
+        } else {
+            opened.decrement();
+        }
+        deleted.increment();
+    }
+
+    @EventListener
+    public void onCapsuleOpened(CapsuleOpenedEvent event) {
+        if (!ready) {
+            return;
+        }
+        LocalDateTime seededAt = reconciledAt;
+        if (event.getOpenTime().isAfter(seededAt)) {
+            locked.decrement();
+            opened.increment();
+        }
+        if (event.getOpenTime().isAfter(openedUntil)) {
+            openedUntil = event.getOpenTime();
+        }
+    }
+
+    /**
+     * 归档任务从 capsules 表移出 count 个已删除的胶囊
+     */
+    public void recordArchived(int count, boolean purged) {
+        if (!ready || count == 0) {
+            return;
+        }
+        deleted.add(-count);
+        if (!purged) {
+            archived.add(count);
+        }
+    }
+
+    public CapsuleStatsResponse getStats() {
+        LocalDateTime now = LocalDateTime.now();
+        CapsuleStatsResponse stats = new CapsuleStatsResponse();
+        stats.setReady(ready);
+        long lockedCount = locked.sum();
+        long openedCount = opened.sum();
+        stats.setLocked(lockedCount);
+        stats.setOpened(openedCount);
+        stats.setLive(lockedCount + openedCount);
+        stats.setDeleted(deleted.sum());
+        stats.setArchived(archived.sum());
+        stats.setHourlyCreations(hourlyCreations.snapshot(now));
+        stats.setDailyCreations(dailyCreations.snapshot(now));
+        stats.setReconciledAt(reconciledAt);
+        stats.setLastCorrection(lastCorrection);
+        return stats;
+    }
+
+    private LocalDateTime earliestBucketStart(LocalDateTime now) {
+        LocalDateTime hourly = now.truncatedTo(ChronoUnit.HOURS).minusHours(hourlyBuckets - 1);
+        LocalDateTime daily = now.truncatedTo(ChronoUnit.DAYS).minusDays(dailyBuckets - 1);
+        return hourly.isBefore(daily) ? hourly : daily;
+    }
+
+    private static void addCreation(Map<LocalDateTime, Long> creations, LocalDateTime createTime) {
+        creations.merge(createTime.truncatedTo(ChronoUnit.HOURS), 1L, Long::sum);
+    }
+
+    /**
+     * 把计数修正为 target，返回偏差的绝对值
+     */
+    private static long correct(LongAdder counter, long target) {
+        long drift = target - counter.sum();
+        counter.add(drift);
+        return Math.abs(drift);
+    }
+
+    private static void registerGauge(MeterRegistry meterRegistry, String state, LongAdder counter) {
+        Gauge.builder("capsule.stats.capsules", counter, LongAdder::sum)
+                .description("按状态统计的胶囊数")
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+
+    private static class Snapshot {
+        CapsuleCounts counts;
+        long archived;
+        Map<LocalDateTime, Long> creations = new HashMap<>();
+    }
+}
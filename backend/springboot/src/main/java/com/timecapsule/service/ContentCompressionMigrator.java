@@ -0,0 +1,67 @@
+package com.timecapsule.service;
+
+import com.timecapsule.model.Capsule;
+import com.timecapsule.repository.CapsuleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 把旧版未压缩的胶囊内容迁移到压缩列
+ *
+ * 每次调度只在一个事务中处理一批，避免长时间占用调度线程和数据库；每批经写事务执行器提交，
+ * 开启写队列（SQLite）时由唯一的写线程执行，不与其他写入争用写锁。
+ * 找不到待迁移的胶囊后停止查询。迁移期间读取时会回退到旧版内容列，不影响正常访问。
+ */
+@Component
+@Slf4j
+public class ContentCompressionMigrator {
+
+    private final CapsuleRepository capsuleRepository;
+    private final WriteQueue writeQueue;
+    private final boolean enabled;
+    private final int batchSize;
+    private volatile boolean finished = false;
+    private long migratedCount;
+
+    public ContentCompressionMigrator(CapsuleRepository capsuleRepository,
+                                      WriteQueue writeQueue,
+                                      @Value("${capsule.content.migration.enabled:true}") boolean enabled,
+                                      @Value("${capsule.content.migration.batch-size:200}") int batchSize) {
+        this.capsuleRepository = capsuleRepository;
+        this.writeQueue = writeQueue;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${capsule.content.migration.interval:PT1S}",
+               initialDelayString = "${capsule.content.migration.interval:PT1S}")
+    public void migrateBatch() {
+        if (!enabled || finished) {
+            return;
+        }
+        try {
+            int migrated = writeQueue.execute(() -> {
+                List<Capsule> capsules = capsuleRepository.findLegacyContentBatch(PageRequest.of(0, batchSize));
+                capsules.forEach(Capsule::migrateLegacyContent);
+                return capsules.size();
+            });
+            migratedCount += migrated;
+            if (migrated > 0) {
+                log.debug("迁移胶囊内容: count={}", migrated);
+            }
+            if (migrated < batchSize) {
+                finished = true;
+                if (migratedCount > 0) {
+                    log.info("胶囊内容迁移完成: total={}", migratedCount);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("胶囊内容迁移失败，稍后重试: {}", e.getMessage());
+        }
+    }
+}
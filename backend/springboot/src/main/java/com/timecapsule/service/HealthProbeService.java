@@ -0,0 +1,153 @@
+package com.timecapsule.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 健康探测
+ *
+ * 实际探测数据库（获取连接并校验，记录往返耗时）和磁盘可用空间，结果缓存 cacheTtl。
+ * 缓存过期后只有一个请求线程执行探测，其余请求直接返回上一次的结果，
+ * 因此无论健康检查被多频繁地轮询，对数据库的访问都不超过每 cacheTtl 一次。
+ * 同时作为 Actuator 的健康指标，/actuator/health 与 /health 共用同一份缓存。
+ */
+@Component("capsule")
+@Slf4j
+public class HealthProbeService implements HealthIndicator {
+
+    private final DataSource dataSource;
+    private final long cacheTtlNanos;
+    private final int dbTimeoutSeconds;
+    private final File diskPath;
+    private final long diskThresholdBytes;
+    private final Timer dbLatencyTimer;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+
+    public HealthProbeService(DataSource dataSource,
+                              MeterRegistry meterRegistry,
+                              @Value("${capsule.health.cache-ttl:PT5S}") Duration cacheTtl,
+                              @Value("${capsule.health.db-timeout:PT2S}") Duration dbTimeout,
+                              @Value("${capsule.health.disk-path:.}") String diskPath,
+                              @Value("${capsule.health.disk-threshold:10MB}") DataSize diskThreshold) {
+        this.dataSource = dataSource;
+        this.cacheTtlNanos = cacheTtl.toNanos();
+        this.dbTimeoutSeconds = (int) Math.max(1, dbTimeout.toSeconds());
+        this.diskPath = new File(diskPath);
+        this.diskThresholdBytes = diskThreshold.toBytes();
+        this.dbLatencyTimer = Timer.builder("capsule.health.db.latency")
+                .description("健康检查中数据库探测的往返耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 获取探测结果；缓存未过期时直接返回，过期时由一个线程刷新，其余线程返回旧结果
+     */
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && System.nanoTime() - current.probedAtNanos < cacheTtlNanos) {
+            return current;
+        }
+        if (current == null) {
+            // 首次探测时没有旧结果可用，等待正在进行的探测
+            refreshLock.lock();
+        } else if (!refreshLock.tryLock()) {
+            return current;
+        }
+        try {
+            current = snapshot;
+            if (current == null || System.nanoTime() - current.probedAtNanos >= cacheTtlNanos) {
+                current = probe();
+                snapshot = current;
+            }
+            return current;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    @Override
+    public Health health() {
+        Snapshot current = current();
+        Health.Builder builder = current.isUp() ? Health.up() : Health.down();
+        builder.withDetail("database", current.databaseUp ? "UP" : "DOWN")
+                .withDetail("databaseLatencyMs", current.databaseLatencyMs)
+                .withDetail("diskSpace", current.diskUp ? "UP" : "DOWN")
+                .withDetail("diskFreeBytes", current.diskFreeBytes)
+                .withDetail("checkedAt", current.checkedAt.toString());
+        if (current.databaseError != null) {
+            builder.withDetail("databaseError", current.databaseError);
+        }
+        return builder.build();
+    }
+
+    private Snapshot probe() {
+        boolean databaseUp;
+        String databaseError = null;
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            databaseUp = connection.isValid(dbTimeoutSeconds);
+            if (!databaseUp) {
+                databaseError = "连接校验未通过";
+            }
+        } catch (Exception e) {
+            databaseUp = false;
+            databaseError = e.getMessage();
+        }
+        long latencyNanos = System.nanoTime() - start;
+        dbLatencyTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+
+        long diskFree = usableSpace(diskPath);
+        boolean diskUp = diskFree >= diskThresholdBytes;
+
+        if (!databaseUp || !diskUp) {
+            log.warn("健康检查异常: database={}, error={}, diskFree={}", databaseUp, databaseError, diskFree);
+        }
+        return new Snapshot(databaseUp, TimeUnit.NANOSECONDS.toMillis(latencyNanos), databaseError,
+                diskUp, diskFree, LocalDateTime.now(), System.nanoTime());
+    }
+
+    /**
+     * 目录尚未创建时（例如首次启动前的数据目录）按最近的已存在上级目录计算
+     */
+    private static long usableSpace(File path) {
+        File existing = path.getAbsoluteFile();
+        while (existing != null && !existing.exists()) {
+            existing = existing.getParentFile();
+        }
+        return existing == null ? 0 : existing.getUsableSpace();
+    }
+
+    /**
+     * 一次探测的结果
+     */
+    @lombok.Value
+    public static class Snapshot {
+        boolean databaseUp;
+        long databaseLatencyMs;
+        String databaseError;
+        boolean diskUp;
+        long diskFreeBytes;
+        LocalDateTime checkedAt;
+        long probedAtNanos;
+
+        public boolean isUp() {
+            return databaseUp && diskUp;
+        }
+    }
+}
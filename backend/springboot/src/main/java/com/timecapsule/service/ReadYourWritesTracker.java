@@ -0,0 +1,61 @@
+package com.timecapsule.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.timecapsule.config.ReplicaRoutingDataSource;
+import com.timecapsule.event.CapsuleCreatedEvent;
+import com.timecapsule.event.CapsuleDeletedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 读己之写
+ *
+ * 开启读写分离时，记录最近 window 内创建或删除的胶囊码；查询这些胶囊码时改用主库，
+ * 避免副本复制延迟导致刚创建的胶囊查不到、刚删除的胶囊仍能查到。
+ * 只记录本实例的写入，多实例部署时其他实例写入的胶囊仍可能短暂读到旧数据。
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final boolean enabled;
+    private final Cache<String, Boolean> recentWrites;
+
+    public ReadYourWritesTracker(@Value("${capsule.datasource.replicas.enabled:false}") boolean enabled,
+                                 @Value("${capsule.datasource.replicas.read-your-writes-window:PT10S}") Duration window,
+                                 @Value("${capsule.datasource.replicas.read-your-writes-max-size:100000}") long maxSize) {
+        this.enabled = enabled;
+        this.recentWrites = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCapsuleCreated(CapsuleCreatedEvent event) {
+        if (enabled) {
+            recentWrites.put(event.getCapsuleCode(), Boolean.TRUE);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCapsuleDeleted(CapsuleDeletedEvent event) {
+        if (enabled) {
+            recentWrites.put(event.getCapsuleCode(), Boolean.TRUE);
+        }
+    }
+
+    /**
+     * 读取指定胶囊码的数据；该胶囊码最近被写入时在主库上执行
+     */
+    public <T> T read(String capsuleCode, Supplier<T> query) {
+        if (enabled && recentWrites.getIfPresent(capsuleCode) != null) {
+            return ReplicaRoutingDataSource.runOnPrimary(query);
+        }
+        return query.get();
+    }
+}
@@ -0,0 +1,82 @@
+package com.timecapsule.service;
+
+import com.timecapsule.model.CodeSequence;
+import com.timecapsule.repository.CodeSequenceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按块分配的数据库序号
+ *
+ * 每次从 code_sequences 表中预留 blockSize 个连续序号，用完后再预留下一块。
+ * 预留在独立事务中提交，业务事务回滚只会留下空号，不会导致序号重复。
+ */
+@Slf4j
+public class SequenceBlockAllocator {
+
+    private final String name;
+    private final long blockSize;
+    private final CodeSequenceRepository sequenceRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long next;
+    private long end;
+
+    public SequenceBlockAllocator(String name, long blockSize,
+                                  CodeSequenceRepository sequenceRepository,
+                                  PlatformTransactionManager transactionManager) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        this.name = name;
+        this.blockSize = blockSize;
+        this.sequenceRepository = sequenceRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 获取下一个序号
+     */
+    public long next() {
+        lock.lock();
+        try {
+            if (next >= end) {
+                reserveBlock();
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reserveBlock() {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            try {
+                Long blockEnd = transactionTemplate.execute(status -> {
+                    if (sequenceRepository.advance(name, blockSize) == 0) {
+                        sequenceRepository.saveAndFlush(new CodeSequence(name, blockSize));
+                        return blockSize;
+                    }
+                    return sequenceRepository.findById(name)
+                            .map(CodeSequence::getNextValue)
+                            .orElseThrow(() -> new IllegalStateException("序号不存在: " + name));
+                });
+                end = blockEnd;
+                next = blockEnd - blockSize;
+                log.debug("预留序号块: name={}, range=[{}, {})", name, next, end);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // 其他实例同时创建了序号记录，重试即可
+                log.debug("序号记录已被并发创建，重试: name={}", name);
+            }
+        }
+        throw new IllegalStateException("预留序号块失败: " + name);
+    }
+}
@@ -0,0 +1,551 @@
+package com.timecapsule.service;
+
+import com.timecapsule.exception.BusinessException;
+import com.timecapsule.exception.ErrorCode;
+import com.timecapsule.model.Capsule;
+import com.timecapsule.util.TimeSortedIdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 胶囊创建的写后缓冲（write-behind）
+ *
+ * 开启后新建的胶囊先追加到本地只追加日志：日志线程把同时到达的记录一起写入并 fsync 一次，
+ * 落盘后请求即返回胶囊码。独立的入库线程每隔 flush-interval 把缓冲中的胶囊按 batch-size 分批写入数据库，
+ * 每批一个事务，入库后从缓冲中移除，对应的日志段全部入库后删除；入库不与其他定时任务共用调度线程。
+ * 每批经写事务执行器提交，开启写队列（SQLite）时由唯一的写线程执行，不与其他写入争用写锁。
+ *
+ * 日志按段存放在 journal-dir 下，每次入库前切换到新段。启动时重放遗留的日志段：末尾不完整或校验失败的记录
+ * 是崩溃时未写完的请求（未曾返回成功），直接丢弃；已经入库的胶囊按胶囊码跳过。
+ * 按胶囊码查询时先查缓冲，刚创建的胶囊入库前也能查到；列表、统计和删除只作用于已入库的胶囊。
+ *
+ * 请求最多等待 append-timeout：超时时记录若仍未被日志线程取走则放弃写日志，改为直接写数据库；
+ * 已在写入中则结果未知，返回 503。日志线程异常退出后不再接收新记录，所有请求直接写数据库。
+ */
+@Component
+@Slf4j
+public class WriteBehindBuffer {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+    private static final long POLL_MILLIS = 100;
+
+    private final SessionFactory sessionFactory;
+    private final WriteQueue writeQueue;
+    private final TimeSortedIdGenerator idGenerator;
+    private final boolean enabled;
+    private final Path directory;
+    private final int batchSize;
+    private final int maxPending;
+    private final Duration flushInterval;
+    private final Duration appendTimeout;
+    private final BlockingQueue<Append> queue;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock segmentLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final DistributionSummary groupSizes;
+    private final Counter flushed;
+    private final Counter fallbacks;
+
+    private FileChannel channel;
+    private long segment;
+    private long segmentRecords;
+    private volatile boolean running;
+    private Thread appender;
+    private ScheduledExecutorService flusher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public WriteBehindBuffer(EntityManagerFactory entityManagerFactory,
+                             WriteQueue writeQueue,
+                             MeterRegistry meterRegistry,
+                             @Value("${spring.jpa.properties.capsule.id.node-id:0}") long nodeId,
+                             @Value("${capsule.write-behind.enabled:false}") boolean enabled,
+                             @Value("${capsule.write-behind.journal-dir:./data/journal}") String journalDir,
+                             @Value("${capsule.write-behind.flush-interval:PT0.5S}") Duration flushInterval,
+                             @Value("${capsule.write-behind.batch-size:500}") int batchSize,
+                             @Value("${capsule.write-behind.max-pending:100000}") int maxPending,
+                             @Value("${capsule.write-behind.queue-capacity:4096}") int queueCapacity,
+                             @Value("${capsule.write-behind.append-timeout:PT2S}") Duration appendTimeout) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.writeQueue = writeQueue;
+        this.idGenerator = new TimeSortedIdGenerator(nodeId);
+        this.enabled = enabled;
+        this.directory = Paths.get(journalDir);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxPending = maxPending;
+        this.flushInterval = flushInterval;
+        this.appendTimeout = appendTimeout;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.groupSizes = DistributionSummary.builder("capsule.journal.group.size")
+                .description("每次 fsync 写入的日志记录数")
+                .register(meterRegistry);
+        this.flushed = Counter.builder("capsule.write.behind.flushed")
+                .description("从写后缓冲写入数据库的胶囊数")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("capsule.write.behind.fallbacks")
+                .description("缓冲已满或日志写入失败而改为直接写数据库的次数")
+                .register(meterRegistry);
+        Gauge.builder("capsule.write.behind.pending", pending, Map::size)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        List<Long> segments = listSegments();
+        for (long number : segments) {
+            replay(number);
+        }
+        segment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1;
+        openSegment();
+        running = true;
+        appender = Thread.ofPlatform().name("capsule-journal").start(this::run);
+        log.info("写后缓冲已启动: journalDir={}, replayed={}", directory.toAbsolutePath(), pending.size());
+        if (!pending.isEmpty()) {
+            flushQuietly();
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("capsule-journal-flush").factory());
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toMillis(), flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止接收新记录，写完队列中剩余的记录后把缓冲全部入库；入库失败的胶囊留在日志中，下次启动时重放
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (appender == null) {
+            return;
+        }
+        running = false;
+        flusher.shutdown();
+        flusher.awaitTermination(30, TimeUnit.SECONDS);
+        appender.join(TimeUnit.SECONDS.toMillis(30));
+        List<Append> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(append -> append.future.complete(false));
+        flushQuietly();
+        segmentLock.lock();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("关闭写后日志失败: {}", e.getMessage());
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    /**
+     * 分配 id 并写入日志，fsync 后返回 true；未开启、缓冲已满、日志写入失败或等待超时时返回 false，
+     * 调用方应直接写数据库
+     */
+    public boolean append(Capsule capsule) {
+        if (!running) {
+            return false;
+        }
+        if (pending.size() >= maxPending) {
+            fallbacks.increment();
+            return false;
+        }
+        capsule.setId(idGenerator.nextId());
+        capsule.setCreateTime(LocalDateTime.now());
+        Append append = new Append(capsule, encode(capsule));
+        if (!queue.offer(append)) {
+            fallbacks.increment();
+            return false;
+        }
+        boolean written = await(append);
+        if (!written) {
+            fallbacks.increment();
+        }
+        return written;
+    }
+
+    /**
+     * 等待日志线程写完；超时或被中断时放弃尚未开始写入的记录
+     */
+    private boolean await(Append append) {
+        try {
+            return append.future.get(appendTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            return false;
+        } catch (TimeoutException e) {
+            log.warn("写后日志等待超时，改为直接写数据库: code={}", append.capsule.getCapsuleCode());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (append.abandon()) {
+            queue.remove(append);
+            return false;
+        }
+        // 日志线程已开始写入这条记录，无法确定是否落盘，也不能再写数据库
+        throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "写入繁忙，请稍后重试");
+    }
+
+    /**
+     * 缓冲中尚未入库的胶囊，不存在时返回 null
+     */
+    public Capsule find(String capsuleCode) {
+        Pending entry = pending.get(capsuleCode);
+        return entry != null ? entry.getCapsule() : null;
+    }
+
+    public boolean isPending(String capsuleCode) {
+        return pending.containsKey(capsuleCode);
+    }
+
+    /**
+     * 缓冲中尚未入库的胶囊快照
+     */
+    public List<Capsule> pendingCapsules() {
+        return pending.values().stream().map(Pending::getCapsule).collect(Collectors.toList());
+    }
+
+    /**
+     * 切换日志段，把此前所有段中的胶囊分批入库；全部入库后删除这些日志段。
+     * 入库失败时抛出异常，未入库的胶囊留在缓冲和日志中，由后台入库重试
+     */
+    public void flush() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            long sealed = rotate();
+            List<Capsule> capsules = pending.values().stream()
+                    .filter(entry -> entry.getSegment() <= sealed)
+                    .map(Pending::getCapsule)
+                    .sorted(Comparator.comparing(Capsule::getId))
+                    .toList();
+            for (int from = 0; from < capsules.size(); from += batchSize) {
+                List<Capsule> batch = capsules.subList(from, Math.min(from + batchSize, capsules.size()));
+                insert(batch);
+                batch.forEach(capsule -> pending.remove(capsule.getCapsuleCode()));
+                flushed.increment(batch.size());
+            }
+            deleteSegments(sealed);
+            if (!capsules.isEmpty()) {
+                log.debug("写后缓冲入库: capsules={}, segments<={}", capsules.size(), sealed);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 后台入库：失败时记录日志，下次调度时重试
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            log.warn("写后缓冲入库失败，稍后重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 日志线程；退出时（包括异常退出）停止接收新记录，未写入的记录都以失败结束，调用方改为直接写数据库
+     */
+    private void run() {
+        List<Append> group = new ArrayList<>();
+        try {
+            while (running || !queue.isEmpty()) {
+                Append first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group);
+                // 等待超时已被放弃的记录不再写入
+                group.removeIf(append -> !append.claim());
+                boolean written = false;
+                try {
+                    written = group.isEmpty() || write(group);
+                } catch (RuntimeException e) {
+                    log.error("写后日志写入失败，改为直接写数据库", e);
+                }
+                for (Append append : group) {
+                    append.future.complete(written);
+                }
+                group.clear();
+            }
+        } catch (InterruptedException e) {
+            log.warn("写后日志线程被中断，之后的请求直接写数据库");
+        } catch (Throwable e) {
+            log.error("写后日志线程异常退出，之后的请求直接写数据库", e);
+        } finally {
+            running = false;
+            queue.drainTo(group);
+            group.forEach(append -> append.future.complete(false));
+        }
+    }
+
+    /**
+     * 写入一组记录并 fsync 一次；落盘后在持有段锁时放入缓冲，保证切换段之后已写入旧段的记录都在缓冲中
+     */
+    private boolean write(List<Append> group) {
+        segmentLock.lock();
+        try {
+            if (!channel.isOpen()) {
+                openSegment();
+            }
+            for (Append append : group) {
+                while (append.record.hasRemaining()) {
+                    channel.write(append.record);
+                }
+            }
+            channel.force(false);
+            segmentRecords += group.size();
+            groupSizes.record(group.size());
+            for (Append append : group) {
+                pending.put(append.capsule.getCapsuleCode(), new Pending(append.capsule, segment));
+            }
+            return true;
+        } catch (IOException e) {
+            log.error("写后日志写入失败，改为直接写数据库: {}", e.getMessage());
+            return false;
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    /**
+     * 当前段有记录时切换到新段，返回已封存的最大段号
+     */
+    private long rotate() throws IOException {
+        segmentLock.lock();
+        try {
+            if (segmentRecords > 0) {
+                channel.close();
+                segment++;
+                openSegment();
+            }
+            return segment - 1;
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentRecords = 0;
+    }
+
+    /**
+     * 经写事务执行器在一个事务中写入一批胶囊，跳过已入库的胶囊码（上次入库后、删除日志段前崩溃）；
+     * 无状态会话使用该事务的连接，不单独提交
+     */
+    private void insert(List<Capsule> batch) {
+        List<String> codes = batch.stream().map(Capsule::getCapsuleCode).toList();
+        writeQueue.execute(() -> {
+            entityManager.unwrap(Session.class).doWork(connection -> {
+                try (StatelessSession session = sessionFactory.withStatelessOptions()
+                        .connection(connection)
+                        .openStatelessSession()) {
+                    Set<String> existing = new HashSet<>(session.createSelectionQuery(
+                                    "select c.capsuleCode from Capsule c where c.capsuleCode in :codes", String.class)
+                            .setParameter("codes", codes)
+                            .getResultList());
+                    for (Capsule capsule : batch) {
+                        if (!existing.contains(capsule.getCapsuleCode())) {
+                            session.insert(capsule);
+                        }
+                    }
+                }
+            });
+            return null;
+        });
+    }
+
+    private void replay(long number) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segmentPath(number)));
+        int records = 0;
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            if (checksum(payload) != checksum) {
+                buffer.position(buffer.position() - length - HEADER_BYTES);
+                break;
+            }
+            Capsule capsule = decode(payload);
+            pending.put(capsule.getCapsuleCode(), new Pending(capsule, number));
+            records++;
+        }
+        if (buffer.hasRemaining()) {
+            log.warn("写后日志末尾有不完整的记录，已丢弃: segment={}, bytes={}", number, buffer.remaining());
+        }
+        log.info("重放写后日志: segment={}, records={}", number, records);
+    }
+
+    private void deleteSegments(long upTo) throws IOException {
+        for (long number : listSegments()) {
+            if (number <= upTo) {
+                Files.deleteIfExists(segmentPath(number));
+            }
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * 记录格式：长度（4 字节）+ CRC32（4 字节）+ 内容
+     */
+    private static ByteBuffer encode(Capsule capsule) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(capsule.getId());
+            out.writeUTF(capsule.getCapsuleCode());
+            out.writeUTF(capsule.getTitle());
+            byte[] content = capsule.getContent().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(content.length);
+            out.write(content);
+            out.writeUTF(capsule.getOpenTime().toString());
+            out.writeBoolean(capsule.getCreatorNickname() != null);
+            if (capsule.getCreatorNickname() != null) {
+                out.writeUTF(capsule.getCreatorNickname());
+            }
+            out.writeUTF(capsule.getCreateTime().toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] payload = bytes.toByteArray();
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+        return record;
+    }
+
+    private static Capsule decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            Capsule capsule = new Capsule();
+            capsule.setId(in.readLong());
+            capsule.setCapsuleCode(in.readUTF());
+            capsule.setTitle(in.readUTF());
+            byte[] content = new byte[in.readInt()];
+            in.readFully(content);
+            capsule.setContent(new String(content, StandardCharsets.UTF_8));
+            capsule.setOpenTime(LocalDateTime.parse(in.readUTF()));
+            if (in.readBoolean()) {
+                capsule.setCreatorNickname(in.readUTF());
+            }
+            capsule.setCreateTime(LocalDateTime.parse(in.readUTF()));
+            capsule.setIsDeleted(false);
+            return capsule;
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    @lombok.Value
+    private static class Pending {
+        Capsule capsule;
+        long segment;
+    }
+
+    private static final class Append {
+
+        private static final int QUEUED = 0;
+        private static final int CLAIMED = 1;
+        private static final int ABANDONED = 2;
+
+        private final Capsule capsule;
+        private final ByteBuffer record;
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        Append(Capsule capsule, ByteBuffer record) {
+            this.capsule = capsule;
+            this.record = record;
+        }
+
+        /**
+         * 日志线程取走记录准备写入；已被放弃时返回 false
+         */
+        boolean claim() {
+            return state.compareAndSet(QUEUED, CLAIMED);
+        }
+
+        /**
+         * 请求线程放弃等待；日志线程已开始写入时返回 false
+         */
+        boolean abandon() {
+            return state.compareAndSet(QUEUED, ABANDONED);
+        }
+    }
+}
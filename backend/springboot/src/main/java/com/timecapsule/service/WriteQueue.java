@@ -0,0 +1,222 @@
+package com.timecapsule.service;
+
+import com.timecapsule.exception.BusinessException;
+import com.timecapsule.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 写事务执行器
+ *
+ * 默认在调用线程中为每次写入开启一个事务。开启写队列后（SQLite 存储模式），所有写入经有界队列
+ * 交给唯一的写线程：写线程每次取出队列中已积累的请求（最多 max-batch 个），在同一个事务中依次执行，
+ * 一次提交、一次 fsync，再通过各自的 CompletableFuture 把结果交还给调用线程。
+ * 队列满时调用线程最多等待 enqueue-timeout，仍无法入队则返回 503。
+ *
+ * 写入操作抛出 BusinessException 时只有该请求失败，其余请求照常提交，因此写入操作必须在修改数据之前完成校验；
+ * 其他异常回滚整批，再逐个在单独的事务中重试，只有真正出错的请求失败。
+ * 写入操作在批量重试时会再次执行，实体需要在操作内部创建。
+ */
+@Service
+@Slf4j
+public class WriteQueue {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final Duration enqueueTimeout;
+    private final BlockingQueue<Task<?>> queue;
+    private final DistributionSummary batchSizes;
+    private final Counter batchRetries;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public WriteQueue(PlatformTransactionManager transactionManager,
+                      MeterRegistry meterRegistry,
+                      @Value("${capsule.sqlite.write-queue.enabled:false}") boolean enabled,
+                      @Value("${capsule.sqlite.write-queue.capacity:1024}") int capacity,
+                      @Value("${capsule.sqlite.write-queue.max-batch:64}") int maxBatch,
+                      @Value("${capsule.sqlite.write-queue.enqueue-timeout:PT1S}") Duration enqueueTimeout) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.enqueueTimeout = enqueueTimeout;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.batchSizes = DistributionSummary.builder("capsule.write.batch.size")
+                .description("每次提交包含的写入请求数")
+                .register(meterRegistry);
+        this.batchRetries = Counter.builder("capsule.write.batch.retries")
+                .description("整批回滚后逐个重试的次数")
+                .register(meterRegistry);
+        Gauge.builder("capsule.write.queue.size", queue, BlockingQueue::size)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("capsule-writer").start(this::run);
+        log.info("写队列已启动: capacity={}, maxBatch={}", queue.remainingCapacity(), maxBatch);
+    }
+
+    /**
+     * 停止接收新请求，执行完队列中剩余的请求后退出
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        List<Task<?>> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        BusinessException shutdown = new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "服务正在关闭");
+        remaining.forEach(task -> task.future.completeExceptionally(shutdown));
+    }
+
+    /**
+     * 在写事务中执行，返回操作结果；操作抛出的异常原样抛给调用方
+     */
+    public <T> T execute(Supplier<T> work) {
+        if (!enabled) {
+            return transactionTemplate.execute(status -> work.get());
+        }
+        Task<T> task = new Task<>(work);
+        try {
+            if (!running || !queue.offer(task, enqueueTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "写入繁忙，请稍后重试");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "写入请求被中断");
+        }
+        try {
+            return task.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 队列中等待执行的写入数，未开启写队列时为 0
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<Task<?>> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Task<?> first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                log.warn("写线程被中断，剩余请求将被拒绝");
+                return;
+            } catch (RuntimeException e) {
+                log.error("写线程处理失败", e);
+                batch.forEach(task -> task.future.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<Task<?>> batch) {
+        batchSizes.record(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(Task::run));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).future.completeExceptionally(e);
+                return;
+            }
+            log.warn("批量写入回滚，逐个重试: size={}, {}", batch.size(), e.getMessage());
+            batchRetries.increment();
+            for (Task<?> task : batch) {
+                if (task.businessError == null) {
+                    commitAlone(task);
+                } else {
+                    task.complete();
+                }
+            }
+            return;
+        }
+        batch.forEach(Task::complete);
+    }
+
+    private void commitAlone(Task<?> task) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> task.run());
+        } catch (RuntimeException e) {
+            task.future.completeExceptionally(e);
+            return;
+        }
+        task.complete();
+    }
+
+    /**
+     * 一个写入请求；结果在事务提交后才交给调用线程
+     */
+    private static final class Task<T> {
+
+        private final Supplier<T> work;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+        private BusinessException businessError;
+
+        Task(Supplier<T> work) {
+            this.work = work;
+        }
+
+        void run() {
+            try {
+                result = work.get();
+            } catch (BusinessException e) {
+                businessError = e;
+            }
+        }
+
+        void complete() {
+            if (businessError != null) {
+                future.completeExceptionally(businessError);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}
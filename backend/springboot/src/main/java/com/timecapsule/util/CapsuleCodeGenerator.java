@@ -1,24 +1,128 @@
 package com.timecapsule.util;
 
+import com.timecapsule.repository.CodeSequenceRepository;
+import com.timecapsule.service.SequenceBlockAllocator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
 
-import java.util.Random;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * 胶囊码生成器
+ *
+ * 支持两种策略：
+ * random  - 随机生成，可能与已有胶囊码冲突，调用方需检查唯一性
+ * feistel - 按块预留数据库序号，经带密钥的 Feistel 置换映射为胶囊码，同一密钥生成的胶囊码不重复；
+ *           仍可能与切换前的随机胶囊码冲突，调用方同样需检查唯一性
+ *
+ * 序号从 0 开始分配，得到密钥即可推算出全部胶囊码，因此密钥不提供默认值，
+ * 必须通过 capsule.code.feistel-key（环境变量 CAPSULE_CODE_FEISTEL_KEY）配置，未配置时拒绝启动。
+ *
+ * random 策略默认使用 ThreadLocalRandom，各线程互不竞争；开启 secure-random 后
+ * 从一组分段的 DRBG 实例中随机选取一个使用，生成不可预测的胶囊码且不经过全局锁。
+ * 不按线程持有 DRBG：虚拟线程每个请求一个，ThreadLocal 会让每次请求都重新创建并播种。
+ */
 @Component
+@Slf4j
 public class CapsuleCodeGenerator {
-    
-    private static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    private static final byte[] CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".getBytes(StandardCharsets.US_ASCII);
     private static final int CODE_LENGTH = 8;
-    private final Random random = new Random();
-    
+    private static final long CODE_SPACE = (long) Math.pow(CHARACTERS.length, CODE_LENGTH);
+    private static final int CODE_BITS = 64 - Long.numberOfLeadingZeros(CODE_SPACE - 1);
+    private static final String SEQUENCE_NAME = "capsule_code";
+
+    private final SecureRandom[] secureRandoms;
+    private final FeistelPermutation permutation;
+    private final SequenceBlockAllocator allocator;
+
+    public CapsuleCodeGenerator(@Value("${capsule.code.strategy:random}") String strategy,
+                                @Value("${capsule.code.feistel-key:}") String feistelKey,
+                                @Value("${capsule.code.block-size:1000}") long blockSize,
+                                @Value("${capsule.code.secure-random:false}") boolean secureRandom,
+                                CodeSequenceRepository sequenceRepository,
+                                PlatformTransactionManager transactionManager) {
+        if ("feistel".equalsIgnoreCase(strategy)) {
+            if (feistelKey == null || feistelKey.isBlank()) {
+                throw new IllegalStateException("feistel 胶囊码策略需要配置密钥 capsule.code.feistel-key（环境变量 CAPSULE_CODE_FEISTEL_KEY）");
+            }
+            this.permutation = new FeistelPermutation(CODE_SPACE, feistelKey);
+            this.allocator = new SequenceBlockAllocator(SEQUENCE_NAME, blockSize, sequenceRepository, transactionManager);
+        } else if ("random".equalsIgnoreCase(strategy)) {
+            this.permutation = null;
+            this.allocator = null;
+        } else {
+            throw new IllegalArgumentException("不支持的胶囊码生成策略: " + strategy);
+        }
+        this.secureRandoms = secureRandom ? newSecureRandoms() : null;
+        log.info("胶囊码生成策略: {}, secureRandom={}", strategy, secureRandom);
+    }
+
     /**
-     * 生成8位随机胶囊码
+     * 生成8位胶囊码
      */
     public String generateCode() {
-        StringBuilder code = new StringBuilder();
-        for (int i = 0; i < CODE_LENGTH; i++) {
-            code.append(CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
+        if (permutation != null) {
+            long sequence = allocator.next();
+            if (sequence >= CODE_SPACE) {
+                throw new IllegalStateException("胶囊码空间已耗尽");
+            }
+            return encode(permutation.permute(sequence));
+        }
+        if (secureRandoms != null) {
+            SecureRandom random = secureRandoms[ThreadLocalRandom.current().nextInt(secureRandoms.length)];
+            return encode(nextSecureValue(random));
+        }
+        return encode(ThreadLocalRandom.current().nextLong(CODE_SPACE));
+    }
+
+    /**
+     * 将 [0, 36^8) 内的数值编码为8位胶囊码，直接写入定长字节缓冲区
+     */
+    static String encode(long value) {
+        byte[] code = new byte[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            code[i] = CHARACTERS[(int) (value % CHARACTERS.length)];
+            value /= CHARACTERS.length;
+        }
+        return new String(code, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 取随机数的高位并拒绝超出胶囊码空间的值，保证均匀分布
+     */
+    private static long nextSecureValue(SecureRandom random) {
+        long value;
+        do {
+            value = random.nextLong() >>> (64 - CODE_BITS);
+        } while (value >= CODE_SPACE);
+        return value;
+    }
+
+    /**
+     * 按 CPU 核数创建 2 倍数量的 DRBG 实例，分散各实例内部的同步锁
+     */
+    private static SecureRandom[] newSecureRandoms() {
+        SecureRandom[] randoms = new SecureRandom[Runtime.getRuntime().availableProcessors() * 2];
+        for (int i = 0; i < randoms.length; i++) {
+            randoms[i] = newSecureRandom();
+        }
+        return randoms;
+    }
+
+    /**
+     * DRBG 实例之间不共享锁（NativePRNG 的读取会经过全局锁）
+     */
+    private static SecureRandom newSecureRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
         }
-        return code.toString();
     }
-}
\ No newline at end of file
+}
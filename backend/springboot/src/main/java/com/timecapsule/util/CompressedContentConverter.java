@@ -0,0 +1,31 @@
+package com.timecapsule.util;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * 胶囊内容与压缩存储格式之间的转换，格式见 {@link ContentCodec}
+ *
+ * 由 Hibernate 通过 Spring 容器创建，因此可以注入配置。
+ */
+@Converter
+public class CompressedContentConverter implements AttributeConverter<String, byte[]> {
+
+    private final ContentCodec codec;
+
+    public CompressedContentConverter(@Value("${capsule.content.compression.min-size:256}") int minSize,
+                                      @Value("${capsule.content.compression.level:6}") int level) {
+        this.codec = new ContentCodec(minSize, level);
+    }
+
+    @Override
+    public byte[] convertToDatabaseColumn(String content) {
+        return content == null ? null : codec.encode(content);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] data) {
+        return data == null ? null : codec.decode(data);
+    }
+}
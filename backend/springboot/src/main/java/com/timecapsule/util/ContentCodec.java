@@ -0,0 +1,147 @@
+package com.timecapsule.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 胶囊内容存储编码
+ *
+ * 第一个字节是格式版本：
+ * FORMAT_RAW 后跟 UTF-8 字节；FORMAT_DEFLATE 后跟 4 字节原始长度（大端）和无 zlib 头的 Deflate 数据。
+ * UTF-8 长度不小于 minSize 且压缩后确实更小时才使用 Deflate，短文本和难以压缩的内容按原样存储。
+ *
+ * Deflater/Inflater 持有本地内存，创建开销较大，用有界队列复用；线程安全。
+ */
+public class ContentCodec {
+
+    public static final byte FORMAT_RAW = 1;
+    public static final byte FORMAT_DEFLATE = 2;
+
+    private static final int DEFLATE_HEADER_LENGTH = 5;
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final int minSize;
+    private final int level;
+    private final Queue<Deflater> deflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final Queue<Inflater> inflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    /**
+     * @param minSize 启用压缩的最小 UTF-8 字节数
+     * @param level   Deflate 压缩级别，1（最快）到 9（最小）
+     */
+    public ContentCodec(int minSize, int level) {
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("level must be between 1 and 9");
+        }
+        this.minSize = minSize;
+        this.level = level;
+    }
+
+    public byte[] encode(String text) {
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        if (raw.length >= minSize) {
+            byte[] compressed = deflate(raw);
+            if (compressed != null) {
+                return compressed;
+            }
+        }
+        byte[] encoded = new byte[raw.length + 1];
+        encoded[0] = FORMAT_RAW;
+        System.arraycopy(raw, 0, encoded, 1, raw.length);
+        return encoded;
+    }
+
+    public String decode(byte[] data) {
+        if (data.length == 0) {
+            throw new IllegalStateException("胶囊内容为空");
+        }
+        return switch (data[0]) {
+            case FORMAT_RAW -> new String(data, 1, data.length - 1, StandardCharsets.UTF_8);
+            case FORMAT_DEFLATE -> new String(inflate(data), StandardCharsets.UTF_8);
+            default -> throw new IllegalStateException("未知的胶囊内容格式: " + data[0]);
+        };
+    }
+
+    /**
+     * 压缩后不小于原始格式时返回 null
+     */
+    private byte[] deflate(byte[] raw) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+        }
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            // 输出上限与原始格式相同，写不下说明压缩没有收益
+            byte[] buffer = new byte[raw.length + 1];
+            buffer[0] = FORMAT_DEFLATE;
+            writeInt(buffer, 1, raw.length);
+            int length = DEFLATE_HEADER_LENGTH;
+            while (!deflater.finished() && length < buffer.length) {
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            if (!deflater.finished() || length >= buffer.length) {
+                return null;
+            }
+            return Arrays.copyOf(buffer, length);
+        } finally {
+            deflater.reset();
+            if (!deflaters.offer(deflater)) {
+                deflater.end();
+            }
+        }
+    }
+
+    private byte[] inflate(byte[] data) {
+        if (data.length < DEFLATE_HEADER_LENGTH) {
+            throw new IllegalStateException("胶囊内容已损坏");
+        }
+        byte[] output = new byte[readInt(data, 1)];
+        Inflater inflater = inflaters.poll();
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+        try {
+            inflater.setInput(data, DEFLATE_HEADER_LENGTH, data.length - DEFLATE_HEADER_LENGTH);
+            int length = 0;
+            while (length < output.length) {
+                int read = inflater.inflate(output, length, output.length - length);
+                if (read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += read;
+            }
+            if (length != output.length) {
+                throw new IllegalStateException("胶囊内容已损坏");
+            }
+            return output;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("胶囊内容解压失败", e);
+        } finally {
+            inflater.reset();
+            if (!inflaters.offer(inflater)) {
+                inflater.end();
+            }
+        }
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] buffer, int offset) {
+        return ((buffer[offset] & 0xFF) << 24)
+                | ((buffer[offset + 1] & 0xFF) << 16)
+                | ((buffer[offset + 2] & 0xFF) << 8)
+                | (buffer[offset + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,85 @@
+package com.timecapsule.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 基于 Feistel 网络的带密钥双射置换
+ *
+ * 在 [0, 2^(2*halfBits)) 上做平衡 Feistel 置换，再通过循环行走（cycle walking）
+ * 把结果限制在 [0, domain) 内，因此对 [0, domain) 中的每个输入都得到唯一输出。
+ * 连续的序号经过置换后看起来是随机的，但不会重复。
+ */
+public class FeistelPermutation {
+
+    private static final int ROUNDS = 6;
+
+    private final long domain;
+    private final int halfBits;
+    private final long halfMask;
+    private final long[] roundKeys = new long[ROUNDS];
+
+    public FeistelPermutation(long domain, String key) {
+        if (domain <= 1) {
+            throw new IllegalArgumentException("domain must be greater than 1");
+        }
+        if (key == null || key.isBlank()) {
+            throw new IllegalArgumentException("key must not be blank");
+        }
+        int bits = 64 - Long.numberOfLeadingZeros(domain - 1);
+        this.domain = domain;
+        this.halfBits = (bits + 1) / 2;
+        this.halfMask = (1L << halfBits) - 1;
+
+        ByteBuffer digest = ByteBuffer.wrap(sha256(key));
+        for (int i = 0; i < ROUNDS; i++) {
+            roundKeys[i] = digest.getLong((i % 4) * 8) + i * 0x9E3779B97F4A7C15L;
+        }
+    }
+
+    /**
+     * 将序号映射为置换后的值，输入和输出都在 [0, domain) 内
+     */
+    public long permute(long value) {
+        if (value < 0 || value >= domain) {
+            throw new IllegalArgumentException("value out of domain: " + value);
+        }
+        long result = value;
+        do {
+            result = encrypt(result);
+        } while (result >= domain);
+        return result;
+    }
+
+    public long domain() {
+        return domain;
+    }
+
+    private long encrypt(long value) {
+        long left = (value >>> halfBits) & halfMask;
+        long right = value & halfMask;
+        for (int i = 0; i < ROUNDS; i++) {
+            long next = left ^ (round(right, roundKeys[i]) & halfMask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private static long round(long value, long key) {
+        long z = value ^ key;
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static byte[] sha256(String key) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.timecapsule.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮
+ *
+ * 最底层每格 tickMs，共 wheelSize 格；超出当前层范围的任务放入上一层（每格为下一层的一整圈），
+ * 上层按需创建。时钟推进时，到期的格子中的任务重新插入，落到更低层或直接到期。
+ * 只有非空的格子进入优先队列，因此推进跨越长时间空档时不需要逐格空转。
+ *
+ * 任务在到期时间向上取整到 tick 后触发，保证不会早于到期时间，最多晚一个 tick。
+ * 非线程安全，由调用方加锁。
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final PriorityQueue<Bucket<T>> queue = new PriorityQueue<>();
+    private final Level<T> root;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("tickMs must be positive and wheelSize greater than 1");
+        }
+        this.root = new Level<>(tickMs, wheelSize, startMs);
+    }
+
+    /**
+     * 添加任务；到期时间不晚于当前时间时不添加并返回 false，调用方应立即处理
+     */
+    public boolean add(Entry<T> entry) {
+        if (entry.cancelled) {
+            return true;
+        }
+        if (!add(root, entry)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * 推进时钟到 nowMs，依次交出所有到期且未取消的任务
+     */
+    public void advance(long nowMs, Consumer<T> expired) {
+        Bucket<T> bucket;
+        while ((bucket = queue.peek()) != null && bucket.expiration <= nowMs) {
+            queue.poll();
+            advanceClock(root, bucket.expiration);
+            List<Entry<T>> entries = bucket.flush();
+            size -= entries.size();
+            for (Entry<T> entry : entries) {
+                if (!entry.cancelled && !add(entry)) {
+                    expired.accept(entry.item);
+                }
+            }
+        }
+        advanceClock(root, nowMs);
+    }
+
+    /**
+     * 等待触发的任务数（包括已取消但尚未清理的）
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 当前时钟，已按 tick 对齐；到期时间早于该时刻的任务都已交出
+     */
+    public long currentTime() {
+        return root.currentTime;
+    }
+
+    private boolean add(Level<T> level, Entry<T> entry) {
+        long expiration = entry.expirationMs;
+        if (expiration < level.currentTime + level.tickMs) {
+            return false;
+        }
+        if (expiration < level.currentTime + level.interval) {
+            long virtualId = expiration / level.tickMs;
+            Bucket<T> bucket = level.buckets[(int) (virtualId % level.wheelSize)];
+            if (bucket.add(entry, virtualId * level.tickMs)) {
+                queue.offer(bucket);
+            }
+            return true;
+        }
+        if (level.overflow == null) {
+            level.overflow = new Level<>(level.interval, level.wheelSize, level.currentTime);
+        }
+        return add(level.overflow, entry);
+    }
+
+    private static <T> void advanceClock(Level<T> level, long timeMs) {
+        for (Level<T> current = level; current != null; current = current.overflow) {
+            if (timeMs < current.currentTime + current.tickMs) {
+                return;
+            }
+            current.currentTime = timeMs - (timeMs % current.tickMs);
+        }
+    }
+
+    /**
+     * 时间轮中的任务，取消后在所在格子到期时被丢弃
+     */
+    public static final class Entry<T> {
+
+        private final T item;
+        private final long expirationMs;
+        private volatile boolean cancelled;
+
+        /**
+         * @param dueMs 到期时间，会向上取整到 tick
+         */
+        public Entry(T item, long dueMs, long tickMs) {
+            this.item = item;
+            this.expirationMs = Math.ceilDiv(dueMs, tickMs) * tickMs;
+        }
+
+        public T item() {
+            return item;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private static final class Level<T> {
+
+        private final long tickMs;
+        private final int wheelSize;
+        private final long interval;
+        private final Bucket<T>[] buckets;
+        private long currentTime;
+        private Level<T> overflow;
+
+        @SuppressWarnings("unchecked")
+        Level(long tickMs, int wheelSize, long startMs) {
+            this.tickMs = tickMs;
+            this.wheelSize = wheelSize;
+            this.interval = tickMs * wheelSize;
+            this.currentTime = startMs - (startMs % tickMs);
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>();
+            }
+        }
+    }
+
+    private static final class Bucket<T> implements Comparable<Bucket<T>> {
+
+        private List<Entry<T>> entries = new ArrayList<>();
+        private long expiration = -1;
+
+        /**
+         * 加入任务，格子的到期时间发生变化（即需要重新入队）时返回 true
+         */
+        boolean add(Entry<T> entry, long bucketExpiration) {
+            entries.add(entry);
+            if (expiration != bucketExpiration) {
+                expiration = bucketExpiration;
+                return true;
+            }
+            return false;
+        }
+
+        List<Entry<T>> flush() {
+            List<Entry<T>> flushed = entries;
+            entries = new ArrayList<>();
+            expiration = -1;
+            return flushed;
+        }
+
+        @Override
+        public int compareTo(Bucket<T> other) {
+            return Long.compare(expiration, other.expiration);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.timecapsule.util;
+
+import lombok.Value;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内存中的 n-gram 倒排索引，用于按子串搜索短文本字段
+ *
+ * 文本先做 NFKC 规范化（全角转半角）并转为小写，每个字符（unigram）和相邻两个字符（bigram）各作为一个词项，
+ * 按 UTF-16 代码单元切分，中日韩文字不需要分词。文档按加入顺序编号，文档号到胶囊码的映射存在 long 数组中
+ * （8 个 ASCII 字符打包为一个 long）；每个词项的倒排表是按文档号递增的差值 varint 编码字节数组，
+ * 常见词项每个文档约占 1 字节。
+ *
+ * 查询只有一个字符时读取 unigram 倒排表，否则对查询中所有 bigram 的倒排表求交集，从最短的表开始。
+ * 结果包含所有 bigram 但不校验它们在原文中是否相邻，极少数情况下会多出不连续匹配的文档。
+ * 删除只记录胶囊码和删除时最大的文档号，查询时过滤，之后以同一胶囊码重新加入的文档不受影响；
+ * 倒排表在重建前不缩小。读写通过读写锁互斥。
+ */
+public class NgramIndex {
+
+    private static final int UNIGRAM_MARK = 0xFFFF;
+    private static final int INITIAL_POSTINGS_BYTES = 4;
+
+    private final int fieldCount;
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> deleted = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] codes = new long[1024];
+    private int documents;
+    private long postingBytes;
+
+    public NgramIndex(int fieldCount) {
+        if (fieldCount <= 0) {
+            throw new IllegalArgumentException("fieldCount must be positive");
+        }
+        this.fieldCount = fieldCount;
+    }
+
+    /**
+     * 加入一个文档；values 按字段顺序排列，可以为 null
+     */
+    public void add(String code, String... values) {
+        long packed = pack(code);
+        lock.writeLock().lock();
+        try {
+            int doc = documents;
+            if (doc == codes.length) {
+                codes = Arrays.copyOf(codes, codes.length * 2);
+            }
+            codes[doc] = packed;
+            documents++;
+            for (int field = 0; field < Math.min(fieldCount, values.length); field++) {
+                if (values[field] == null) {
+                    continue;
+                }
+                for (int gram : grams(normalize(values[field]), true)) {
+                    Postings list = postings.get(key(field, gram));
+                    if (list == null) {
+                        list = new Postings();
+                        postings.put(key(field, gram), list);
+                        postingBytes += INITIAL_POSTINGS_BYTES;
+                    }
+                    postingBytes += list.append(doc);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 标记删除；之后的查询不再返回此前以该胶囊码加入的文档
+     */
+    public void remove(String code) {
+        long packed = pack(code);
+        lock.writeLock().lock();
+        try {
+            deleted.put(packed, documents - 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查找 field 字段（-1 表示任一字段）包含 query 的文档，按加入索引的顺序从新到旧分页返回
+     */
+    public Result search(String query, int field, int offset, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return new Result(0, List.of());
+        }
+        int[] grams = grams(normalized, normalized.length() == 1);
+        lock.readLock().lock();
+        try {
+            int[] matches = new int[0];
+            for (int f = 0; f < fieldCount; f++) {
+                if (field < 0 || field == f) {
+                    matches = union(matches, intersect(f, grams));
+                }
+            }
+            List<String> page = new ArrayList<>(Math.min(limit, matches.length));
+            long total = 0;
+            for (int i = matches.length - 1; i >= 0; i--) {
+                long packed = codes[matches[i]];
+                if (!deleted.isEmpty() && deleted.getOrDefault(packed, -1) >= matches[i]) {
+                    continue;
+                }
+                if (total >= offset && page.size() < limit) {
+                    page.add(unpack(packed));
+                }
+                total++;
+            }
+            return new Result(total, page);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 已加入的文档数，包括已删除的
+     */
+    public int documents() {
+        lock.readLock().lock();
+        try {
+            return documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 已删除但仍在倒排表中的胶囊码数
+     */
+    public int deletedDocuments() {
+        lock.readLock().lock();
+        try {
+            return deleted.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int terms() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 倒排表和文档号映射占用的字节数（不含哈希表本身的开销）
+     */
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            return postingBytes + (long) codes.length * Long.BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] intersect(int field, int[] grams) {
+        Postings[] lists = new Postings[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.get(key(field, grams[i]));
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.count, b.count));
+        int[] candidates = lists[0].decode();
+        int size = candidates.length;
+        for (int i = 1; i < lists.length && size > 0; i++) {
+            size = lists[i].retain(candidates, size);
+        }
+        return Arrays.copyOf(candidates, size);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        int[] merged = new int[a.length + b.length];
+        int i = 0, j = 0, size = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                merged[size++] = a[i++];
+            } else if (a[i] > b[j]) {
+                merged[size++] = b[j++];
+            } else {
+                merged[size++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            merged[size++] = a[i++];
+        }
+        while (j < b.length) {
+            merged[size++] = b[j++];
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    private static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).strip();
+    }
+
+    /**
+     * 去重后的词项；withUnigrams 为 false 时只返回 bigram
+     */
+    private static int[] grams(String text, boolean withUnigrams) {
+        Set<Integer> grams = new HashSet<>();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (withUnigrams) {
+                grams.add((c << 16) | UNIGRAM_MARK);
+            }
+            if (i + 1 < text.length()) {
+                grams.add((c << 16) | text.charAt(i + 1));
+            }
+        }
+        return grams.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static long key(int field, int gram) {
+        return ((long) field << 32) | (gram & 0xFFFFFFFFL);
+    }
+
+    private static long pack(String code) {
+        if (code.length() > 8) {
+            throw new IllegalArgumentException("code too long: " + code);
+        }
+        long packed = 0;
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (c == 0 || c > 0x7F) {
+                throw new IllegalArgumentException("code must be ASCII: " + code);
+            }
+            packed |= (long) c << (i * 8);
+        }
+        return packed;
+    }
+
+    private static String unpack(long packed) {
+        StringBuilder code = new StringBuilder(8);
+        for (int i = 0; i < 8 && (packed >>> (i * 8)) != 0; i++) {
+            code.append((char) ((packed >>> (i * 8)) & 0x7F));
+        }
+        return code.toString();
+    }
+
+    /**
+     * 查询结果；total 为匹配的未删除文档总数
+     */
+    @Value
+    public static class Result {
+
+        long total;
+        List<String> codes;
+    }
+
+    /**
+     * 差值 varint 编码的倒排表，文档号严格递增
+     */
+    private static final class Postings {
+
+        private byte[] data = new byte[INITIAL_POSTINGS_BYTES];
+        private int length;
+        private int count;
+        private int lastDoc = -1;
+
+        /**
+         * 追加文档号，返回数组扩容增加的字节数
+         */
+        int append(int doc) {
+            if (doc == lastDoc) {
+                return 0;
+            }
+            int grown = 0;
+            if (length + 5 > data.length) {
+                int capacity = Math.max(data.length * 3 / 2, length + 5);
+                grown = capacity - data.length;
+                data = Arrays.copyOf(data, capacity);
+            }
+            int delta = doc - lastDoc;
+            while ((delta & ~0x7F) != 0) {
+                data[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            data[length++] = (byte) delta;
+            lastDoc = doc;
+            count++;
+            return grown;
+        }
+
+        int[] decode() {
+            int[] docs = new int[count];
+            int pos = 0, doc = -1;
+            for (int i = 0; i < count; i++) {
+                int delta = 0, shift = 0;
+                byte b;
+                do {
+                    b = data[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                doc += delta;
+                docs[i] = doc;
+            }
+            return docs;
+        }
+
+        /**
+         * 只保留 candidates 前 size 个元素中也在本表中的文档号，返回保留的个数
+         */
+        int retain(int[] candidates, int size) {
+            int kept = 0, pos = 0, doc = -1, read = 0;
+            for (int i = 0; i < size; i++) {
+                int target = candidates[i];
+                while (doc < target && read < count) {
+                    int delta = 0, shift = 0;
+                    byte b;
+                    do {
+                        b = data[pos++];
+                        delta |= (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    doc += delta;
+                    read++;
+                }
+                if (doc == target) {
+                    candidates[kept++] = target;
+                } else if (doc < target) {
+                    break;
+                }
+            }
+            return kept;
+        }
+    }
+}
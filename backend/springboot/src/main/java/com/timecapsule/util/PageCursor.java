@@ -0,0 +1,41 @@
+package com.timecapsule.util;
+
+import com.timecapsule.exception.BusinessException;
+import com.timecapsule.exception.ErrorCode;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 键集分页游标，编码最后一条记录的 (createTime, id)，对客户端不透明
+ */
+@Value
+public class PageCursor {
+    
+    private static final char SEPARATOR = '|';
+    
+    LocalDateTime createTime;
+    long id;
+    
+    public String encode() {
+        String raw = createTime.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            if (index < 0) {
+                throw new IllegalArgumentException("missing separator");
+            }
+            return new PageCursor(LocalDateTime.parse(raw.substring(0, index)),
+                    Long.parseLong(raw.substring(index + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessException(ErrorCode.INVALID_CURSOR, "无效的分页游标");
+        }
+    }
+}
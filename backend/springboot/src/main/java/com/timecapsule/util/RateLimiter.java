@@ -0,0 +1,81 @@
+package com.timecapsule.util;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定内存的无锁限流表
+ *
+ * 使用 GCRA（通用信元速率算法，与令牌桶等价）：每个槽位只保存一个 long，即下一个请求的理论到达时间 TAT，
+ * 每隔 period / limit 恢复一个许可，最多允许 limit 个请求的突发。客户端按 key 的哈希映射到槽位，
+ * 槽位数固定，内存占用与客户端数量无关；哈希冲突的客户端共享同一个桶，只会更严格而不会放宽限制。
+ *
+ * 允许的请求用一次 CAS 更新槽位，拒绝的请求只读不写，不会让其他核心的缓存行失效。
+ */
+public class RateLimiter {
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final int seed = ThreadLocalRandom.current().nextInt();
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final long origin = System.nanoTime();
+
+    /**
+     * @param limit     每个 period 内允许的请求数，也是最大突发
+     * @param period    时间窗口
+     * @param slotCount 槽位数，向上取整到 2 的幂
+     */
+    public RateLimiter(int limit, Duration period, int slotCount) {
+        if (limit <= 0 || period.isNegative() || period.isZero() || slotCount <= 0) {
+            throw new IllegalArgumentException("limit, period and slotCount must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(1, slotCount - 1)) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.intervalNanos = period.toNanos() / limit;
+        this.burstNanos = intervalNanos * (limit - 1);
+    }
+
+    /**
+     * 尝试获取一个许可；允许时返回 0，否则返回需要等待的纳秒数
+     */
+    public long tryAcquire(String key) {
+        return tryAcquire(key, 1);
+    }
+
+    /**
+     * 尝试一次获取 permits 个许可，全部获取或全部不获取；允许时返回 0，否则返回需要等待的纳秒数。
+     * permits 超过 limit 时桶满也不够，总是被拒绝
+     */
+    public long tryAcquire(String key, int permits) {
+        // 以创建时刻为原点，未使用的槽位（0）总是早于当前时间
+        long now = System.nanoTime() - origin;
+        long cost = intervalNanos * Math.max(1, permits);
+        int index = index(key);
+        while (true) {
+            long tat = slots.get(index);
+            long start = Math.max(tat, now);
+            long wait = start + cost - intervalNanos - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (slots.compareAndSet(index, tat, start + cost)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 槽位数
+     */
+    public int capacity() {
+        return slots.length();
+    }
+
+    private int index(String key) {
+        int h = (key.hashCode() ^ seed) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
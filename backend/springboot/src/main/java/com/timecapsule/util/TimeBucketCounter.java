@@ -0,0 +1,112 @@
+package com.timecapsule.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按固定时间宽度分桶的环形计数器，只保留最近 size 个桶
+ *
+ * 桶按本地时间对齐（宽度为一天时从零点开始）。每个桶是一个 LongAdder，并发计数不争用同一个变量；
+ * 写入新的时间段时复用最旧的槽位，换桶时加锁，期间并发写入旧桶的少量计数可能丢失。
+ * 早于保留窗口的写入直接忽略。
+ */
+public class TimeBucketCounter {
+
+    private final long widthSeconds;
+    private final int size;
+    private final AtomicLongArray buckets;
+    private final AtomicReferenceArray<LongAdder> counts;
+
+    public TimeBucketCounter(long widthSeconds, int size) {
+        if (widthSeconds <= 0 || size <= 0) {
+            throw new IllegalArgumentException("widthSeconds and size must be positive");
+        }
+        this.widthSeconds = widthSeconds;
+        this.size = size;
+        this.buckets = new AtomicLongArray(size);
+        this.counts = new AtomicReferenceArray<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.set(i, Long.MIN_VALUE);
+            counts.set(i, new LongAdder());
+        }
+    }
+
+    public void add(LocalDateTime time, long delta) {
+        long bucket = bucketOf(time);
+        int slot = slotOf(bucket);
+        long current = buckets.get(slot);
+        if (current > bucket) {
+            return;
+        }
+        if (current < bucket) {
+            synchronized (this) {
+                current = buckets.get(slot);
+                if (current > bucket) {
+                    return;
+                }
+                if (current < bucket) {
+                    counts.set(slot, new LongAdder());
+                    buckets.set(slot, bucket);
+                }
+            }
+        }
+        counts.get(slot).add(delta);
+    }
+
+    /**
+     * 用给定的计数替换所有桶；键为桶内任一时刻，窗口外的键被忽略
+     */
+    public synchronized void reset(LocalDateTime now, Map<LocalDateTime, Long> values) {
+        long latest = bucketOf(now);
+        for (int i = 0; i < size; i++) {
+            long bucket = latest - i;
+            int slot = slotOf(bucket);
+            counts.set(slot, new LongAdder());
+            buckets.set(slot, bucket);
+        }
+        values.forEach((time, count) -> {
+            long bucket = bucketOf(time);
+            if (bucket <= latest && bucket > latest - size) {
+                counts.get(slotOf(bucket)).add(count);
+            }
+        });
+    }
+
+    /**
+     * 截至 now 的最近 size 个桶，按时间从旧到新排列
+     */
+    public List<Bucket> snapshot(LocalDateTime now) {
+        long latest = bucketOf(now);
+        List<Bucket> result = new ArrayList<>(size);
+        for (long bucket = latest - size + 1; bucket <= latest; bucket++) {
+            int slot = slotOf(bucket);
+            long count = buckets.get(slot) == bucket ? counts.get(slot).sum() : 0;
+            result.add(new Bucket(LocalDateTime.ofEpochSecond(bucket * widthSeconds, 0, ZoneOffset.UTC), count));
+        }
+        return result;
+    }
+
+    private long bucketOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), widthSeconds);
+    }
+
+    private int slotOf(long bucket) {
+        return (int) Math.floorMod(bucket, (long) size);
+    }
+
+    /**
+     * 一个时间桶；start 为桶的开始时间（本地时间）
+     */
+    @lombok.Value
+    public static class Bucket {
+
+        LocalDateTime start;
+        long count;
+    }
+}
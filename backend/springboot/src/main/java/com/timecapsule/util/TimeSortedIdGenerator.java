@@ -0,0 +1,72 @@
+package com.timecapsule.util;
+
+import com.timecapsule.model.TimeSortedId;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按时间递增的主键生成器
+ *
+ * id 由 41 位毫秒时间戳（自 2024-01-01 起）、4 位节点号和 8 位序号组成，共 53 位，
+ * 不超过 JavaScript Number 的安全整数范围，前端可直接使用。
+ * 同一毫秒内超过 256 个 id 或时钟回拨时借用后续毫秒，保证单节点内严格递增且不阻塞。
+ * 多实例部署时通过 spring.jpa.properties.capsule.id.node-id 为每个实例分配不同节点号（0-15）。
+ * 同一进程内的生成器共用序号状态，应用侧预先分配的 id（写后缓冲）与 Hibernate 生成的 id 不会重复；
+ * 实体已有 id 时保留原值。
+ */
+public class TimeSortedIdGenerator implements IdentifierGenerator {
+
+    public static final String NODE_ID_SETTING = "capsule.id.node-id";
+
+    private static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 4;
+    private static final int SEQUENCE_BITS = 8;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    /**
+     * 最近一次分配的 (时间戳 << 8 | 序号)
+     */
+    private static final AtomicLong lastState = new AtomicLong();
+
+    public TimeSortedIdGenerator(TimeSortedId annotation, Member member, CustomIdGeneratorCreationContext context) {
+        this(context.getServiceRegistry().getService(ConfigurationService.class)
+                .getSetting(NODE_ID_SETTING, StandardConverters.INTEGER, 0));
+    }
+
+    public TimeSortedIdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点号必须在 0-" + MAX_NODE_ID + " 之间: " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        Object assigned = session.getEntityPersister(null, object).getIdentifier(object, session);
+        return assigned != null ? assigned : nextId();
+    }
+
+    /**
+     * 生成下一个 id
+     */
+    public long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+        long last;
+        long next;
+        do {
+            last = lastState.get();
+            next = Math.max(now, last + 1);
+        } while (!lastState.compareAndSet(last, next));
+        long timestamp = next >>> SEQUENCE_BITS;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+    }
+}